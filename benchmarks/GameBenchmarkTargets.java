@@ -0,0 +1,90 @@
+import bench.GameTargets;
+
+// Default-package side of the JMH benchmarks, see bench.GameTargets
+public class GameBenchmarkTargets implements GameTargets {
+    private GameModel model;            // Used for moves and move generation
+    private GameModel saveModel;        // Used for save/load, which replaces every piece
+    private String saveFile;
+    private final int[] moveBuffer = new int[MoveGenerator.MAX_MOVES];
+
+    // isMoveValid state: a starting board without Rams, apart from the red one on c2
+    private final Position openBoard = new Position();
+    private Piece selected;
+    private int from;
+    private int to;
+
+    @Override
+    public void setUp(String saveFile) {
+        // saveBoard and loadBoard log every call; keep the JMH console readable
+        GameLog.setLevel(GameLog.OFF);
+        this.saveFile = saveFile;
+        model = new GameModel();
+        saveModel = new GameModel();
+
+        openBoard.setInitial();
+        for (int col = 0; col < Position.COLS; col++) {
+            if (col != 2) {
+                openBoard.remove(Position.square(col, 1));
+            }
+            openBoard.remove(Position.square(col, 6));
+        }
+    }
+
+    @Override
+    public void selectPiece(String type) {
+        switch (type) {
+            case "Ram":
+                select(2, 1, 2, 2);
+                break;
+            case "Biz":
+                select(1, 0, 2, 2);
+                break;
+            case "Sau":
+                select(2, 0, 1, 1);
+                break;
+            case "Tor":
+                select(0, 0, 0, 7); // Full file walk ending in a capture
+                break;
+            case "Xor":
+                select(4, 0, 1, 3);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown piece type: " + type);
+        }
+    }
+
+    private void select(int col, int row, int toCol, int toRow) {
+        from = Position.square(col, row);
+        to = Position.square(toCol, toRow);
+        selected = Piece.at(openBoard, from);
+    }
+
+    @Override
+    public boolean movePieceRoundTrip() {
+        // Each Biz jumps out and back, alternating sides as the turn requires
+        return model.movePiece(1, 7, 2, 5) & model.movePiece(1, 0, 2, 2)
+                & model.movePiece(2, 5, 1, 7) & model.movePiece(2, 2, 1, 0);
+    }
+
+    @Override
+    public Object getPieceArray() {
+        return model.getPieceArray();
+    }
+
+    @Override
+    public boolean isMoveValid() {
+        return selected.isMoveValid(openBoard, from, to);
+    }
+
+    @Override
+    public int calculateMovableTiles() {
+        return GameController.calculateMovableTiles(model, 1, 0, false, moveBuffer).size();
+    }
+
+    @Override
+    public int saveLoadRoundTrip() {
+        saveModel.saveBoard(saveFile);
+        saveModel.loadBoard(saveFile);
+        return Long.bitCount(saveModel.getPosition().occupied());
+    }
+}
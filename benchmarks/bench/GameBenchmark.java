@@ -0,0 +1,62 @@
+package bench;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Model and controller paths that run on every user move
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class GameBenchmark {
+    private GameTargets targets;
+    private Path saveFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        saveFile = Files.createTempFile("chess-bench", ".txt");
+        targets = GameTargets.create();
+        targets.setUp(saveFile.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(saveFile);
+    }
+
+    // A Biz move out and back, so the board is unchanged after each call
+    @Benchmark
+    public boolean movePiece() {
+        return targets.movePieceRoundTrip();
+    }
+
+    @Benchmark
+    public Object getPieceArray() {
+        return targets.getPieceArray();
+    }
+
+    @Benchmark
+    public int calculateMovableTiles() {
+        return targets.calculateMovableTiles();
+    }
+
+    @Benchmark
+    public int saveLoadRoundTrip() {
+        return targets.saveLoadRoundTrip();
+    }
+}
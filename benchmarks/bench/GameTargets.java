@@ -0,0 +1,25 @@
+package bench;
+
+// The game classes live in the default package, which a JMH benchmark cannot import.
+// GameBenchmarkTargets implements this interface from the default package instead,
+// and the benchmarks load it by name once per trial.
+public interface GameTargets {
+    static GameTargets create() throws ReflectiveOperationException {
+        return (GameTargets) Class.forName("GameBenchmarkTargets").getDeclaredConstructor().newInstance();
+    }
+
+    void setUp(String saveFile) throws Exception;
+
+    // Piece used by isMoveValid: one of "Ram", "Biz", "Sau", "Tor", "Xor"
+    void selectPiece(String type);
+
+    boolean movePieceRoundTrip();
+
+    Object getPieceArray();
+
+    boolean isMoveValid();
+
+    int calculateMovableTiles();
+
+    int saveLoadRoundTrip();
+}
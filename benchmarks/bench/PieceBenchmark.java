@@ -0,0 +1,51 @@
+package bench;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Piece.isMoveValid for each piece type, on a board with open lines for the sliders
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PieceBenchmark {
+    @Param({"Ram", "Biz", "Sau", "Tor", "Xor"})
+    public String piece;
+
+    private GameTargets targets;
+    private Path saveFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        saveFile = Files.createTempFile("chess-bench", ".txt");
+        targets = GameTargets.create();
+        targets.setUp(saveFile.toString());
+        targets.selectPiece(piece);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(saveFile);
+    }
+
+    @Benchmark
+    public boolean isMoveValid() {
+        return targets.isMoveValid();
+    }
+}
@@ -0,0 +1,95 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.swing.SwingUtilities;
+
+// Analysis mode: keeps deepening a search of the current position on a background thread and
+// reports each finished iteration to a listener on the EDT. analyze() abandons the previous
+// search right away, so the position can change on every move without the EDT ever waiting.
+// Updates are coalesced: if the EDT falls behind, only the newest one is delivered.
+public class Analyzer {
+    private final ParallelSearch search;
+    private final Search.Listener listener;                         // Called on the EDT, score from Red's view
+    private final AtomicInteger generation = new AtomicInteger();   // Bumped for every new position
+    private final AtomicReference<Update> pending = new AtomicReference<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "analyzer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY); // Painting and input come first
+        return thread;
+    });
+
+    private static final class Update {
+        final int generation;
+        final int depth;
+        final int score;
+        final int move;
+        final long nodes;
+        final long elapsedMillis;
+
+        Update(int generation, int depth, int score, int move, long nodes, long elapsedMillis) {
+            this.generation = generation;
+            this.depth = depth;
+            this.score = score;
+            this.move = move;
+            this.nodes = nodes;
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+
+    public Analyzer(int threads, Search.Listener listener) {
+        this.search = new ParallelSearch(new TranspositionTable(32), threads);
+        this.listener = listener;
+    }
+
+    public void setTablebase(Tablebase tablebase) {
+        search.setTablebase(tablebase);
+    }
+
+    // Drop the current analysis and start on `position`. Safe to call from any thread.
+    public void analyze(PositionSnapshot position) {
+        int current = generation.incrementAndGet();
+        search.stop();
+        long token = search.newToken(); // Taken after the stop, so only the earlier searches end
+        executor.execute(() -> {
+            if (current != generation.get()) {
+                return; // A newer position is already queued
+            }
+            Position copy = new Position();
+            position.copyTo(copy);
+            int sign = copy.getSideToMove() == Position.RED ? 1 : -1;
+            search.setListener((depth, score, bestMove, nodes, elapsedMillis) -> {
+                if (current != generation.get()) {
+                    search.stop(); // Superseded before this search had started
+                    return;
+                }
+                publish(new Update(current, depth, sign * score, bestMove, nodes, elapsedMillis));
+            });
+            search.search(copy, Long.MAX_VALUE / 4, Search.MAX_PLY, token);
+        });
+    }
+
+    // Stop analysing until the next analyze call
+    public void stop() {
+        generation.incrementAndGet();
+        search.stop();
+    }
+
+    public void shutdown() {
+        stop();
+        search.shutdown();
+        executor.shutdownNow();
+    }
+
+    private void publish(Update update) {
+        if (pending.getAndSet(update) == null) {
+            SwingUtilities.invokeLater(() -> {
+                Update latest = pending.getAndSet(null);
+                if (latest != null && latest.generation == generation.get()) {
+                    listener.onIteration(latest.depth, latest.score, latest.move, latest.nodes, latest.elapsedMillis);
+                }
+            });
+        }
+    }
+}
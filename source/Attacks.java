@@ -0,0 +1,192 @@
+import java.util.Arrays;
+import java.util.Random;
+
+// Attack masks for every piece type on the 5x8 board, built once at class-load time.
+// Leapers (Biz, Sau, Ram) are a plain per-square lookup. Tor and Xor slide, so their
+// attacks are indexed by the blocking pieces on their rays using magic multiplication.
+public final class Attacks {
+    private static final int SQUARES = Position.SQUARES;
+
+    public static final long[] BIZ = new long[SQUARES];
+    public static final long[] SAU = new long[SQUARES];
+    public static final long[] RAM_FORWARD = new long[SQUARES];    // Towards higher rows
+    public static final long[] RAM_BACKWARD = new long[SQUARES];   // Towards lower rows
+
+    private static final int[][] TOR_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] XOR_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    // Magics found with the search in initSlider and kept so startup does not repeat it
+    private static final long[] TOR_MAGIC = {
+            0x4401414100040400L, 0x1208010100208D80L, 0x440400C08000000BL, 0x2010080482000000L,
+            0x1401824020048040L, 0x220040204410008L, 0x90020140160C00L, 0x2880203208408880L,
+            0x8860104040502A00L, 0x2220100110000061L, 0x40082050001C040L, 0x482802180005120L,
+            0x1301024040002A10L, 0x240E100804024000L, 0x402011300004CL, 0x9080100002820L,
+            0x600420820000306L, 0x3008082810000008L, 0x120400D02010000L, 0x120280120044083L,
+            0x201024008000000L, 0x7050202080002000L, 0x220E0408000010BL, 0x1203020102000C04L,
+            0x40248012080481L, 0x400820300008684L, 0x2104041100281440L, 0x102010108002010L,
+            0x20811001400001L, 0x2020100200422800L, 0x4A3002C010008040L, 0x2100801210400000L,
+            0x224008100220A0L, 0x2480122040400600L, 0x2240082820081040L, 0x400801A8040590CL,
+            0x194040080408804L, 0x1500808040400810L, 0x8890110204000084L, 0x806044082000500L
+    };
+    private static final long[] XOR_MAGIC = {
+            0x333200080008020L, 0x302284014020205L, 0x1241010011210000L, 0x290901280210088L,
+            0x48202000044804L, 0x111E211400048400L, 0xC204A10082480110L, 0x42C880080E70400L,
+            0x42848000000840A0L, 0x2094210400004000L, 0x2C50850200011C00L, 0x51448459020400L,
+            0x2840210008000000L, 0x104528020800008L, 0xC20861084E10480L, 0x3002040A02031AL,
+            0xA9422020C000080L, 0x1020440A0000000L, 0x148609000280080L, 0x8300548420404810L,
+            0xA183400220110002L, 0x20A080440648808L, 0xA099219426004408L, 0x11090282C240202L,
+            0x481101080464028L, 0x9024100200A1000L, 0x2080234020000008L, 0x20040290C0232840L,
+            0x1000848040004000L, 0x1C04090022810200L, 0x8000120802010008L, 0x3010189002200200L,
+            0x402002C00413E00L, 0x100C39000020008L, 0x808911200140080L, 0x13424B040083000L,
+            0x888100480082000L, 0x882270C0000000L, 0xC3780083408L, 0x100031060008421L
+    };
+
+    private static final long[] TOR_MASK = new long[SQUARES];
+    private static final int[] TOR_SHIFT = new int[SQUARES];
+    private static final long[][] TOR_TABLE = new long[SQUARES][];
+
+    private static final long[] XOR_MASK = new long[SQUARES];
+    private static final int[] XOR_SHIFT = new int[SQUARES];
+    private static final long[][] XOR_TABLE = new long[SQUARES][];
+
+    static {
+        int[][] bizJumps = {{1, 2}, {2, 1}, {-1, 2}, {-2, 1}, {1, -2}, {2, -1}, {-1, -2}, {-2, -1}};
+        for (int sq = 0; sq < SQUARES; sq++) {
+            int col = Position.col(sq);
+            int row = Position.row(sq);
+            for (int[] jump : bizJumps) {
+                BIZ[sq] |= maskAt(col + jump[0], row + jump[1]);
+            }
+            for (int dc = -1; dc <= 1; dc++) {
+                for (int dr = -1; dr <= 1; dr++) {
+                    if (dc != 0 || dr != 0) {
+                        SAU[sq] |= maskAt(col + dc, row + dr);
+                    }
+                }
+            }
+            RAM_FORWARD[sq] = maskAt(col, row + 1);
+            RAM_BACKWARD[sq] = maskAt(col, row - 1);
+        }
+
+        // Fixed seed so a magic search, if ever needed, gives the same tables on every run
+        Random random = new Random(0x5A0B10L);
+        for (int sq = 0; sq < SQUARES; sq++) {
+            initSlider(sq, TOR_DIRECTIONS, TOR_MASK, TOR_MAGIC, TOR_SHIFT, TOR_TABLE, random);
+            initSlider(sq, XOR_DIRECTIONS, XOR_MASK, XOR_MAGIC, XOR_SHIFT, XOR_TABLE, random);
+        }
+    }
+
+    private Attacks() {
+    }
+
+    public static long ram(int square, boolean forward) {
+        return forward ? RAM_FORWARD[square] : RAM_BACKWARD[square];
+    }
+
+    public static long tor(int square, long occupied) {
+        return TOR_TABLE[square][(int) (((occupied & TOR_MASK[square]) * TOR_MAGIC[square]) >>> TOR_SHIFT[square])];
+    }
+
+    public static long xor(int square, long occupied) {
+        return XOR_TABLE[square][(int) (((occupied & XOR_MASK[square]) * XOR_MAGIC[square]) >>> XOR_SHIFT[square])];
+    }
+
+    // Squares a piece of the given type attacks, including squares held by either color
+    public static long of(int type, int square, long occupied, boolean ramForward) {
+        switch (type) {
+            case Position.RAM:
+                return ram(square, ramForward);
+            case Position.BIZ:
+                return BIZ[square];
+            case Position.SAU:
+                return SAU[square];
+            case Position.TOR:
+                return tor(square, occupied);
+            case Position.XOR:
+                return xor(square, occupied);
+            default:
+                return 0;
+        }
+    }
+
+    private static long maskAt(int col, int row) {
+        return Position.onBoard(col, row) ? Position.bit(Position.square(col, row)) : 0;
+    }
+
+    // Walk each ray until it leaves the board or hits a blocker (the blocker is included)
+    private static long slide(int square, long occupied, int[][] directions) {
+        long attacks = 0;
+        for (int[] d : directions) {
+            int col = Position.col(square) + d[0];
+            int row = Position.row(square) + d[1];
+            while (Position.onBoard(col, row)) {
+                long b = Position.bit(Position.square(col, row));
+                attacks |= b;
+                if ((occupied & b) != 0) {
+                    break;
+                }
+                col += d[0];
+                row += d[1];
+            }
+        }
+        return attacks;
+    }
+
+    // Squares whose occupancy can change the attack set: every ray square except the last one
+    private static long relevantMask(int square, int[][] directions) {
+        long mask = 0;
+        for (int[] d : directions) {
+            int col = Position.col(square) + d[0];
+            int row = Position.row(square) + d[1];
+            while (Position.onBoard(col + d[0], row + d[1])) {
+                mask |= Position.bit(Position.square(col, row));
+                col += d[0];
+                row += d[1];
+            }
+        }
+        return mask;
+    }
+
+    private static void initSlider(int square, int[][] directions, long[] masks, long[] magics,
+                                   int[] shifts, long[][] tables, Random random) {
+        long mask = relevantMask(square, directions);
+        int bits = Long.bitCount(mask);
+        int size = 1 << bits;
+
+        // Enumerate every blocker subset of the mask (carry-rippler) with its attack set
+        long[] subsets = new long[size];
+        long[] attacks = new long[size];
+        long subset = 0;
+        for (int i = 0; i < size; i++) {
+            subsets[i] = subset;
+            attacks[i] = slide(square, subset, directions);
+            subset = (subset - mask) & mask;
+        }
+
+        int shift = 64 - Math.max(bits, 1);
+        long[] table = new long[1 << Math.max(bits, 1)];
+        boolean[] used = new boolean[table.length];
+        long magic = magics[square]; // Try the stored magic first
+        while (true) {
+            Arrays.fill(used, false);
+            boolean ok = true;
+            for (int i = 0; i < size && ok; i++) {
+                int index = (int) ((subsets[i] * magic) >>> shift);
+                if (!used[index]) {
+                    used[index] = true;
+                    table[index] = attacks[i];
+                } else if (table[index] != attacks[i]) {
+                    ok = false;
+                }
+            }
+            if (ok) {
+                masks[square] = mask;
+                magics[square] = magic;
+                shifts[square] = shift;
+                tables[square] = table;
+                return;
+            }
+            magic = random.nextLong() & random.nextLong() & random.nextLong();
+        }
+    }
+}
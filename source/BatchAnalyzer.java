@@ -0,0 +1,152 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.stream.IntStream;
+
+// Side-effect-free bulk queries for tools: primitive arrays in and out, nothing logged, and no
+// caller object modified apart from the output arrays. Positions are passed as consecutive
+// PositionCodec records. With `parallel` set, batches larger than CHUNK are split across the
+// common fork-join pool; smaller ones run on the calling thread either way.
+// Usage for a throughput report: java BatchAnalyzer <archive> [--parallel]
+public final class BatchAnalyzer {
+    private static final int CHUNK = 1024;      // Items per task in parallel mode
+
+    private BatchAnalyzer() {
+    }
+
+    private interface Range {
+        void run(int start, int end);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java BatchAnalyzer <archive> [--parallel]");
+            return;
+        }
+        boolean parallel = args.length > 1 && args[1].equals("--parallel");
+        byte[] records;
+        int count;
+        try (PositionArchive.Reader reader = new PositionArchive.Reader(Paths.get(args[0]))) {
+            count = (int) Math.min(reader.count(), Integer.MAX_VALUE / PositionCodec.RECORD_SIZE);
+            records = new byte[count * PositionCodec.RECORD_SIZE];
+            ByteBuffer out = ByteBuffer.wrap(records);
+            Position position = new Position();
+            for (int i = 0; i < count; i++) {
+                reader.read(i, position);
+                PositionCodec.encode(position, out);
+            }
+        }
+
+        int[] moveCounts = new int[count];
+        long[] attacked = new long[count];
+        boolean[] sauAttacked = new boolean[count];
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            analyze(records, count, moveCounts, attacked, sauAttacked, parallel);
+            long nanos = System.nanoTime() - start;
+            long moves = 0;
+            int threatened = 0;
+            for (int i = 0; i < count; i++) {
+                moves += moveCounts[i];
+                threatened += sauAttacked[i] ? 1 : 0;
+            }
+            System.out.printf("%d positions, %d moves, %d with the Sau attacked: %.1f ms, %.0f positions/s%n",
+                    count, moves, threatened, nanos / 1e6, count * 1e9 / Math.max(1, nanos));
+        }
+    }
+
+    // For each move in `moves`, the move with its capture flag if it is legal in `position`,
+    // otherwise Move.NONE. `position` is only read.
+    public static void validate(Position position, int[] moves, int[] legal, boolean parallel) {
+        if (legal.length < moves.length) {
+            throw new IllegalArgumentException("Output holds " + legal.length + " of " + moves.length + " moves");
+        }
+        // Legal targets per origin square, built once for the whole batch
+        long[] targets = new long[Position.SQUARES];
+        int[] buffer = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generate(position, buffer);
+        for (int i = 0; i < count; i++) {
+            targets[Move.from(buffer[i])] |= Position.bit(Move.to(buffer[i]));
+        }
+        long enemy = position.occupied(1 - position.getSideToMove());
+        run(moves.length, parallel, (start, end) -> {
+            for (int i = start; i < end; i++) {
+                int move = moves[i] & ~Move.CAPTURE;    // The flag is recomputed, not trusted
+                int from = Move.from(move);
+                int to = Move.to(move);
+                if ((move & ~0xFFF) != 0 || from >= Position.SQUARES || to >= Position.SQUARES
+                        || (targets[from] & Position.bit(to)) == 0) {
+                    legal[i] = Move.NONE;
+                } else {
+                    legal[i] = Move.encode(from, to, (enemy & Position.bit(to)) != 0);
+                }
+            }
+        });
+    }
+
+    // legal[i] is moves[i] with its capture flag if it is legal in record i of `records`,
+    // otherwise Move.NONE
+    public static void validate(byte[] records, int[] moves, int[] legal, boolean parallel) {
+        int count = moves.length;
+        checkRecords(records, count);
+        if (legal.length < count) {
+            throw new IllegalArgumentException("Output holds " + legal.length + " of " + count + " moves");
+        }
+        ByteBuffer in = ByteBuffer.wrap(records).asReadOnlyBuffer();
+        run(count, parallel, (start, end) -> {
+            Position position = new Position(1);
+            int[] buffer = new int[MoveGenerator.MAX_MOVES];
+            for (int i = start; i < end; i++) {
+                decode(in, i, position);
+                legal[i] = MoveGenerator.legalMove(position, moves[i] & ~Move.CAPTURE, buffer);
+            }
+        });
+    }
+
+    // For each of the first `count` records: the number of legal moves, the squares the side to
+    // move attacks, and whether the opponent attacks the Sau of the side to move. There is no
+    // check rule, so an attacked Sau is simply one that can be captured next move.
+    public static void analyze(byte[] records, int count, int[] moveCounts, long[] attacked,
+                               boolean[] sauAttacked, boolean parallel) {
+        checkRecords(records, count);
+        if (moveCounts.length < count || attacked.length < count || sauAttacked.length < count) {
+            throw new IllegalArgumentException("Output arrays hold fewer than " + count + " positions");
+        }
+        ByteBuffer in = ByteBuffer.wrap(records).asReadOnlyBuffer();
+        run(count, parallel, (start, end) -> {
+            Position position = new Position(1);
+            int[] buffer = new int[MoveGenerator.MAX_MOVES];
+            for (int i = start; i < end; i++) {
+                decode(in, i, position);
+                int side = position.getSideToMove();
+                moveCounts[i] = MoveGenerator.generate(position, buffer);
+                attacked[i] = MoveGenerator.attacks(position, side);
+                sauAttacked[i] = (MoveGenerator.attacks(position, 1 - side) & position.pieces(side, Position.SAU)) != 0;
+            }
+        });
+    }
+
+    private static void checkRecords(byte[] records, int count) {
+        if ((long) count * PositionCodec.RECORD_SIZE > records.length) {
+            throw new IllegalArgumentException("Expected " + count + " records of " + PositionCodec.RECORD_SIZE
+                    + " bytes, got " + records.length + " bytes");
+        }
+    }
+
+    private static void decode(ByteBuffer in, int index, Position into) {
+        try {
+            PositionCodec.decode(in, index * PositionCodec.RECORD_SIZE, into);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Record " + index + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void run(int count, boolean parallel, Range range) {
+        if (!parallel || count <= CHUNK) {
+            range.run(0, count);
+            return;
+        }
+        IntStream.range(0, (count + CHUNK - 1) / CHUNK).parallel()
+                .forEach(chunk -> range.run(chunk * CHUNK, Math.min(count, (chunk + 1) * CHUNK)));
+    }
+}
@@ -0,0 +1,97 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+import javax.swing.SwingUtilities;
+
+// Plays one color. The search runs on its own thread so the Swing event thread never waits,
+// and the chosen move is handed back on the event thread.
+public class ComputerPlayer {
+    private final int color;
+    private final long thinkMillis;                 // Strict budget per move
+    private final ParallelSearch search;
+    private volatile OpeningBook book = null;       // Consulted before searching when set
+    private volatile Tablebase tablebase = null;    // Plays covered endgames without searching when set
+    private final int[] bookCheck = new int[MoveGenerator.MAX_MOVES];
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "computer-player");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ComputerPlayer(int color, long thinkMillis, int threads) {
+        this.color = color;
+        this.thinkMillis = thinkMillis;
+        this.search = new ParallelSearch(new TranspositionTable(64), threads);
+    }
+
+    public int getColor() {
+        return color;
+    }
+
+    // Search `position` on the worker thread and pass the chosen move (Move encoding) to `onMove` on the EDT
+    public void requestMove(PositionSnapshot position, IntConsumer onMove) {
+        long token = search.newToken(); // A stop() from now on ends this search, even before it starts
+        executor.execute(() -> {
+            Position copy = new Position();
+            position.copyTo(copy);
+            Tablebase endgames = tablebase;
+            int tableMove = endgames != null ? endgames.bestMove(copy, bookCheck) : Move.NONE;
+            if (tableMove != Move.NONE) {
+                logMove(tableMove, "endgame table");
+                SwingUtilities.invokeLater(() -> onMove.accept(tableMove));
+                return;
+            }
+            int bookMove = bookMove(copy);
+            if (bookMove != Move.NONE) {
+                logMove(bookMove, "book");
+                SwingUtilities.invokeLater(() -> onMove.accept(bookMove));
+                return;
+            }
+            long start = System.nanoTime();
+            Search.Result result = search.search(copy, thinkMillis, Search.MAX_PLY, token);
+            Metrics.record(Metrics.SEARCH, start);
+            if (GameLog.isEnabled(GameLog.INFO)) {
+                GameLog.log(GameLog.INFO, "computer.move", Move.toString(result.getMove()),
+                        "depth", result.getDepth(), "score", result.getScore(), "nodes", result.getNodes());
+            }
+            SwingUtilities.invokeLater(() -> onMove.accept(result.getMove()));
+        });
+    }
+
+    private static void logMove(int move, String source) {
+        if (GameLog.isEnabled(GameLog.INFO)) {
+            GameLog.log(GameLog.INFO, "computer.move", Move.toString(move) + " (" + source + ")");
+        }
+    }
+
+    public void setBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+        search.setTablebase(tablebase);
+    }
+
+    // A book move for `position`, weighted by how often it was played, or Move.NONE.
+    // The move is checked against the generator in case of a hash collision.
+    private int bookMove(Position position) {
+        OpeningBook current = book;
+        if (current == null) {
+            return Move.NONE;
+        }
+        int move = current.pickMove(position.getHash(), ThreadLocalRandom.current().nextLong(Long.MAX_VALUE));
+        return move != Move.NONE ? MoveGenerator.legalMove(position, move, bookCheck) : Move.NONE;
+    }
+
+    // Abandon the current or requested search, e.g. when the game is reloaded. Its move is still delivered.
+    public void stop() {
+        search.stop();
+    }
+
+    public void shutdown() {
+        search.shutdown();
+        executor.shutdownNow();
+    }
+}
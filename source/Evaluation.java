@@ -0,0 +1,90 @@
+// Static evaluation from the side to move's point of view, in centi-Rams.
+// The Sau has no material value: losing it ends the game, which the search scores as mate.
+// Material and piece-square values (including Ram advancement and direction) are summed by
+// Position as pieces move, capture and swap, so only mobility and Sau safety, which depend on
+// the sliders' blockers, are worked out here.
+public final class Evaluation {
+    public static final int[] VALUES = {100, 300, 0, 450, 400}; // Ram, Biz, Sau, Tor, Xor
+
+    private static final int[] MOBILITY = {0, 3, 0, 4, 4};      // Per reachable square, by type
+    private static final int SAU_SHIELD = 8;                    // Per own piece next to the Sau
+    private static final int SAU_DANGER = 12;                   // Per enemy-attacked square next to the Sau
+
+    // Red's view of each piece on each square, Blue's entries negated: [color * TYPES + type][square].
+    // Two extra rows, 2 * TYPES + color, hold Rams moving away from their own side.
+    private static final int[][] PIECE_SQUARE = new int[2 * Position.TYPES + 2][Position.SQUARES];
+
+    static {
+        int[] centerCol = {0, 4, 8, 4, 0};
+        int[] centerRow = {0, 2, 5, 8, 8, 5, 2, 0};
+        int[] ramAdvance = {0, 0, 6, 12, 20, 30, 42, 30};  // Rows travelled from home while advancing
+        int[] sauHome = {10, 4, -6, -14, -20, -24, -26, -26};  // Rows away from its own back row
+        for (int color = Position.RED; color <= Position.BLUE; color++) {
+            int sign = color == Position.RED ? 1 : -1;
+            for (int sq = 0; sq < Position.SQUARES; sq++) {
+                int col = Position.col(sq);
+                // Red starts on row 0, Blue on row 7: count rows from each color's own side
+                int rank = color == Position.RED ? Position.row(sq) : Position.ROWS - 1 - Position.row(sq);
+                int center = centerCol[col] + centerRow[rank];
+                int[] values = new int[Position.TYPES];
+                values[Position.RAM] = VALUES[Position.RAM] + 8 - Math.abs(col - 2) * 2;    // Returning home
+                values[Position.BIZ] = VALUES[Position.BIZ] + center * 2;
+                values[Position.SAU] = sauHome[rank] + (col == 2 ? 4 : 0);
+                values[Position.TOR] = VALUES[Position.TOR] + center;
+                values[Position.XOR] = VALUES[Position.XOR] + center;
+                for (int type = 0; type < Position.TYPES; type++) {
+                    PIECE_SQUARE[color * Position.TYPES + type][sq] = sign * values[type];
+                }
+                PIECE_SQUARE[2 * Position.TYPES + color][sq] = sign * (VALUES[Position.RAM] + ramAdvance[rank]
+                        + centerCol[col] / 2);
+            }
+        }
+    }
+
+    private Evaluation() {
+    }
+
+    public static int evaluate(Position position) {
+        int score = forRed(position);
+        return position.getSideToMove() == Position.RED ? score : -score;
+    }
+
+    // The evaluation from Red's point of view, whoever is to move
+    public static int forRed(Position position) {
+        return position.getScore() + dynamic(position, Position.RED) - dynamic(position, Position.BLUE);
+    }
+
+    // Red's view of `type` of `color` on `square`. `forward` is the Ram direction and matters
+    // for Rams only: forward is towards higher rows, which is away from home for Red.
+    public static int pieceSquare(int color, int type, int square, boolean forward) {
+        if (type == Position.RAM && forward == (color == Position.RED)) {
+            return PIECE_SQUARE[2 * Position.TYPES + color][square];
+        }
+        return PIECE_SQUARE[color * Position.TYPES + type][square];
+    }
+
+    // Mobility and Sau safety of `color`, from its own point of view
+    private static int dynamic(Position position, int color) {
+        long occupied = position.occupied();
+        long own = position.occupied(color);
+        int score = 0;
+        for (int type = 0; type < Position.TYPES; type++) {
+            if (MOBILITY[type] == 0) {
+                continue;
+            }
+            long pieces = position.pieces(color, type);
+            while (pieces != 0) {
+                int sq = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                score += MOBILITY[type] * Long.bitCount(Attacks.of(type, sq, occupied, false) & ~own);
+            }
+        }
+        long sau = position.pieces(color, Position.SAU);
+        if (sau != 0) {
+            long zone = Attacks.SAU[Long.numberOfTrailingZeros(sau)];
+            score += SAU_SHIELD * Long.bitCount(zone & own);
+            score -= SAU_DANGER * Long.bitCount(zone & MoveGenerator.attacks(position, 1 - color));
+        }
+        return score;
+    }
+}
@@ -2,39 +2,60 @@ import java.awt.Point;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
 
-public class GameController implements Runnable {
+public class GameController {
     private final GameModel model;
     private final GameView view;
-    private Thread gameThread;
-    private final int FPS = 60;     // Target frame rate: 60 frames per second
+    private final RepaintScheduler repaintScheduler;
+    private final int FPS = 60;     // Frame rate cap while dragging: 60 frames per second
 
     public static final int RED = 0;
     public static final int BLUE = 1;
     private int currentTurn; 
 
-    private Piece selectedPiece = null;
+    private int selectedCol = -1;   // Square of the piece being dragged, -1 while none is
+    private int selectedRow = -1;
+    private final int[] moveBuffer = new int[MoveGenerator.MAX_MOVES]; // Reused by calculateMovableTiles
+
+    private ComputerPlayer computer = null;     // null while both sides are played with the mouse
+    private long thinkMillis = 2000;            // Time budget per computer move
+    private int searchThreads = 1;              // Threads the computer searches with
+    private int computerRequest = 0;            // Bumped to discard moves searched for an older position
+    private long dropStart = 0;                 // When the last drop happened, until the next frame is painted
+    private MoveJournal journal = null;         // Records every move when set
+    private RemoteGame remote = null;           // Connection to a GameServer when playing online
+    private int remoteColor = Position.NONE;    // Our color in the remote match
+    private boolean remoteStarted = false;      // Both players are seated
+    private int pendingMove = Move.NONE;        // Our move sent to the server, played once it is echoed back
+    private OpeningBook book = null;            // Used by the computer and for hints when set
+    private Tablebase tablebase = null;         // Endgame tables for the computer when set
+    private Analyzer analyzer = null;           // Background analysis for the side panel when on
 
     public GameController(GameModel model) {
         this.model = model;
         this.view = new GameView(this);                 // Pass the controller to the view
+        this.repaintScheduler = new RepaintScheduler(FPS, view::flushRepaint);
         this.currentTurn = model.getCurrentTurn();      // Initialize from model
 
-        if (currentTurn == RED) {
-            System.out.println("Initial currentTurn: Red");
-        } else {
-            System.out.println("Initial currentTurn: Blue");
-        }
+        GameLog.log(GameLog.DEBUG, "game.started", currentTurn == RED ? "Red to move" : "Blue to move");
     }
 
     public MouseAdapter getMouseListener() {
         return new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
+                if (isComputerTurn() || isRemoteTurn()) {
+                    return; // Wait for the computer's or the remote player's move
+                }
+                long start = System.nanoTime();
                 Point relativePoint = SwingUtilities.convertPoint(
                         e.getComponent(),
                         e.getPoint(),
@@ -48,23 +69,26 @@ public class GameController implements Runnable {
                     row = 7 - row;
                 }
 
-                for (Piece piece : model.getPiecesList()) {
-                    if (piece.getCol() == col && piece.getRow() == row && piece.color == currentTurn) {
-                        selectedPiece = piece;
-                        view.setDraggingPiece(selectedPiece, relativePoint.x, relativePoint.y);
+                if (!Position.onBoard(col, row)) {
+                    return;
+                }
+                Piece piece = model.getSnapshot().pieceAt(col, row);
+                if (piece != null && piece.getColor() == currentTurn) {
+                    selectedCol = col;
+                    selectedRow = row;
+                    view.setDraggingPiece(col, row, relativePoint.x, relativePoint.y);
+                    repaintScheduler.startAnimation(); // Frame-capped repaints while dragging
 
-                        if (selectedPiece != null) {
-                            List<Point> movableTiles = calculateMovableTiles(selectedPiece);
-                            view.setMovableTiles(movableTiles);
-                        }
-                        return;
-                    }
+                    List<Point> movableTiles = calculateMovableTiles(col, row);
+                    view.setMovableTiles(movableTiles);
+                    Metrics.record(Metrics.HIGHLIGHT, start);
                 }
             }
 
             @Override
             public void mouseReleased(MouseEvent e) {
-                if (selectedPiece != null) {
+                if (selectedCol >= 0) {
+                    dropStart = System.nanoTime();
                     Point relativePoint = SwingUtilities.convertPoint(
                             e.getComponent(),
                             e.getPoint(),
@@ -78,90 +102,348 @@ public class GameController implements Runnable {
                         row = 7 - row;
                     }
 
-                    if (model.movePiece(model.getPiecesList().indexOf(selectedPiece), col, row)) {
-                        // Update the current turn after a successful move
-                        currentTurn = (currentTurn == RED) ? BLUE : RED;
-                        model.setCurrentTurn(currentTurn); // Update the model's current turn
-                        System.out.println("Turn changed to: " + (currentTurn == RED ? "Red" : "Blue"));
-
-                        // Increment turn counter and check for piece swapping
-                        if (currentTurn == RED) {
-                            model.incrementTurnCounter(); // Notify model to increment the turn counter
-                            if (model.getTurnCounter() >= 2) {
-                                model.swapTorAndXor();          // Swap pieces in the model
-                                model.resetTurnCounter();       // Reset turn counter after swap
-                            }
-                        }
-
-                        // Show the turn text
-                        view.showTurnText((currentTurn == RED ? "Red" : "Blue") + "'s Turn");
-
-                        // Check for win condition
-                        if (!model.isSauPresent(GameModel.RED)) {
-                            endGame("Blue");
-                        } else if (!model.isSauPresent(GameModel.BLUE)) {
-                            endGame("Red");
-                        }
-
+                    if (playMove(selectedCol, selectedRow, col, row)) {
                         view.clearMovableTiles(); // Clear movable tiles after a valid move
                     } else {
-                        System.out.println("Invalid move!");
+                        GameLog.log(GameLog.DEBUG, "move.invalid", null, "col", col, "row", row);
                         view.clearMovableTiles(); // Clear movable tiles after an invalid move
                     }
 
                     // Clear the dragging state and highlight after the move
-                    selectedPiece = null;
+                    selectedCol = -1;
+                    selectedRow = -1;
                     view.clearDraggingPiece();
                     view.clearHighlight();
-                    view.repaint();
+                    repaintScheduler.stopAnimation();
+                    repaintScheduler.requestRepaint();
+                    requestComputerMove();
                 }
             }
         };
     }
 
+    // Play a move chosen here by the mouse or the computer. In a remote match our own moves go to
+    // the server first and reach the board only when it echoes them back, so a move the server
+    // rejects is never shown.
+    private boolean playMove(int fromCol, int fromRow, int col, int row) {
+        if (remote == null || currentTurn != remoteColor) {
+            return applyMove(fromCol, fromRow, col, row);
+        }
+        if (!Position.onBoard(col, row)) {
+            return false;
+        }
+        int move = Move.encode(Position.square(fromCol, fromRow), Position.square(col, row));
+        if (MoveGenerator.legalMove(model.getPosition(), move, moveBuffer) == Move.NONE) {
+            return false;
+        }
+        pendingMove = move;
+        remote.sendMove(move);
+        return true;
+    }
+
+    // Apply a move for the side to move, then pass the turn, swap Tor and Xor when due and check for a winner
+    private boolean applyMove(int fromCol, int fromRow, int col, int row) {
+        if (!model.movePiece(fromCol, fromRow, col, row)) {
+            return false;
+        }
+        int move = Move.encode(Position.square(fromCol, fromRow), Position.square(col, row));
+        journalMove(move);
+        // The model has passed the turn, swapping Tor and Xor when due
+        boolean swapped = model.lastMoveSwapped();
+        currentTurn = model.getCurrentTurn();
+        GameLog.log(GameLog.DEBUG, "turn.changed", null, "side", currentTurn, "turnCounter", model.getTurnCounter());
+
+        view.markMoveDirty(fromCol, fromRow, col, row, swapped);
+
+        // Show the turn text
+        view.showTurnText((currentTurn == RED ? "Red" : "Blue") + "'s Turn");
+
+        // Check for win condition
+        if (!model.isSauPresent(GameModel.RED)) {
+            endGame("Blue");
+        } else if (!model.isSauPresent(GameModel.BLUE)) {
+            endGame("Red");
+        }
+        refreshAnalysis();
+        return true;
+    }
+
+    // Let the computer play `color`, or hand both sides back to the mouse with any other value
+    public void setComputerPlayer(int color) {
+        if (computer != null) {
+            computer.shutdown();
+            computer = null;
+        }
+        computerRequest++;
+        if (color == RED || color == BLUE) {
+            computer = new ComputerPlayer(color, thinkMillis, searchThreads);
+            computer.setBook(book);
+            computer.setTablebase(tablebase);
+            requestComputerMove();
+        }
+        refreshAnalysis();
+    }
+
+    // Turn the analysis side panel on or off
+    public void setAnalysis(boolean enabled) {
+        if (enabled && analyzer == null) {
+            analyzer = new Analyzer(searchThreads, view::showAnalysis);
+            analyzer.setTablebase(tablebase);
+            refreshAnalysis();
+        } else if (!enabled && analyzer != null) {
+            analyzer.shutdown();
+            analyzer = null;
+        }
+        view.setAnalysisShown(enabled);
+    }
+
+    // Restart the analysis on the current position. It pauses while the computer thinks,
+    // so both searches do not compete for the same cores.
+    private void refreshAnalysis() {
+        if (analyzer == null) {
+            return;
+        }
+        view.clearAnalysis();
+        if (isComputerTurn()) {
+            analyzer.stop();
+        } else {
+            analyzer.analyze(model.getSnapshot());
+        }
+    }
+
+    // Record moves in `journal`. With `resume` the last journaled game is replayed onto the board
+    // and continued; otherwise the current position starts a new game in the journal.
+    public void setJournal(MoveJournal journal, boolean resume) throws IOException {
+        this.journal = journal;
+        MoveJournal.Replay replay = resume ? journal.replay() : null;
+        if (replay != null && replay.games() > 0) {
+            int game = replay.games() - 1;
+            Position position = new Position();
+            replay.position(game, replay.plies(game), position);
+            model.loadPosition(position);
+            currentTurn = model.getCurrentTurn();
+            GameLog.log(GameLog.INFO, "journal.resumed", null, "game", game, "moves", replay.plies(game));
+            view.showTurnText((currentTurn == RED ? "Red" : "Blue") + "'s Turn");
+        } else {
+            journal.startGame(model.getPosition());
+        }
+    }
+
+    private void journalMove(int move) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.append(move);
+        } catch (IOException e) {
+            GameLog.log(GameLog.ERROR, "journal.failed", e.getMessage());
+        }
+    }
+
+    private void journalGameStart() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.startGame(model.getPosition());
+        } catch (IOException e) {
+            GameLog.log(GameLog.ERROR, "journal.failed", e.getMessage());
+        }
+    }
+
+    public void setBook(OpeningBook book) {
+        this.book = book;
+        if (computer != null) {
+            computer.setBook(book);
+        }
+    }
+
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+        if (computer != null) {
+            computer.setTablebase(tablebase);
+        }
+        if (analyzer != null) {
+            analyzer.setTablebase(tablebase);
+        }
+    }
+
+    // Show the most played book move for the side to move and mark its target tile
+    public void showHint() {
+        int move = book == null ? Move.NONE : book.bestMove(model.getPosition().getHash());
+        if (move != Move.NONE) {
+            move = MoveGenerator.legalMove(model.getPosition(), move, moveBuffer);
+        }
+        if (move == Move.NONE) {
+            view.showTurnText("No book move");
+            return;
+        }
+        view.showTurnText("Hint: " + Move.toString(move));
+        int to = Move.to(move);
+        List<Point> target = new ArrayList<>();
+        if (view.isFlipped() && currentTurn == GameModel.RED) {
+            target.add(new Point(4 - Position.col(to), 7 - Position.row(to)));
+        } else {
+            target.add(new Point(Position.col(to), Position.row(to)));
+        }
+        view.setMovableTiles(target);
+    }
+
+    public void setThinkMillis(long thinkMillis) {
+        this.thinkMillis = thinkMillis;
+    }
+
+    public void setSearchThreads(int searchThreads) {
+        this.searchThreads = searchThreads;
+    }
+
+    private boolean isComputerTurn() {
+        return computer != null && computer.getColor() == currentTurn;
+    }
+
+    private boolean isRemoteTurn() {
+        return remote != null && (!remoteStarted || currentTurn != remoteColor || pendingMove != Move.NONE);
+    }
+
+    // Play against a remote player through a GameServer: join match `matchId`, or open a new
+    // match playing `color` if `matchId` is 0
+    public void connect(String host, int port, int matchId, int color) throws IOException {
+        remote = new RemoteGame(host, port, new RemoteGame.Listener() {
+            @Override
+            public void onMatch(int id, int seat) {
+                remoteColor = seat;
+                GameLog.log(GameLog.INFO, "remote.seated", GameServer.colorName(seat), "match", id);
+                view.showTurnText("Match " + id + ": waiting");
+            }
+
+            @Override
+            public void onStart(Position start) {
+                remoteStarted = true;
+                pendingMove = Move.NONE;
+                model.loadPosition(start);
+                currentTurn = model.getCurrentTurn();
+                journalGameStart();
+                view.showTurnText((currentTurn == RED ? "Red" : "Blue") + "'s Turn");
+                view.markAllDirty();
+                repaintScheduler.requestRepaint();
+                refreshAnalysis();
+                requestComputerMove();
+            }
+
+            @Override
+            public void onMove(int move, int color) {
+                if (color == remoteColor) {
+                    pendingMove = Move.NONE; // The server accepted our move
+                }
+                int from = Move.from(move);
+                int to = Move.to(move);
+                if (!applyMove(Position.col(from), Position.row(from), Position.col(to), Position.row(to))) {
+                    GameLog.log(GameLog.ERROR, "remote.move.rejected", Move.toString(move));
+                    return;
+                }
+                repaintScheduler.requestRepaint();
+                requestComputerMove();
+            }
+
+            @Override
+            public void onOver(String result) {
+                GameLog.log(GameLog.INFO, "remote.over", result);
+                remoteStarted = false;
+                JOptionPane.showMessageDialog(view.getFrame(), "Game over: " + result, "Game Over",
+                        JOptionPane.INFORMATION_MESSAGE);
+            }
+
+            @Override
+            public void onError(String message) {
+                GameLog.log(GameLog.WARN, "remote.error", message);
+                // A refused move never reached the board, so it is still our turn
+                pendingMove = Move.NONE;
+                view.showTurnText(message);
+            }
+        });
+        if (matchId > 0) {
+            remote.join(matchId);
+        } else {
+            remote.newMatch(color);
+        }
+    }
+
+    // Start a background search if the computer is to move; its move is played on the EDT
+    private void requestComputerMove() {
+        if (!isComputerTurn() || isRemoteTurn()) {
+            return;
+        }
+        int request = ++computerRequest;
+        computer.requestMove(model.getSnapshot(), move -> {
+            if (request != computerRequest || move == Move.NONE || !isComputerTurn()) {
+                return; // The position changed while the computer was thinking
+            }
+            int from = Move.from(move);
+            int to = Move.to(move);
+            if (playMove(Position.col(from), Position.row(from), Position.col(to), Position.row(to))) {
+                repaintScheduler.requestRepaint();
+                requestComputerMove();
+            }
+        });
+    }
+
     public MouseMotionAdapter getMouseMotionListener() {
         return new MouseMotionAdapter() {
             @Override
             public void mouseDragged(MouseEvent e) {
-                if (selectedPiece != null) {
+                if (selectedCol >= 0) {
                     Point relativePoint = SwingUtilities.convertPoint(
                             e.getComponent(),
                             e.getPoint(),
                             view.getCheckerboardPanel()
                     );
                     view.updateDraggingPiecePosition(relativePoint.x, relativePoint.y);
-                    view.repaint();
+                    repaintScheduler.requestRepaint();
                 }
             }
         };
     }
 
     public void startGame() {
-        gameThread = new Thread(this);  // Create a new thread for the game loop
-        gameThread.start();             // Start the thread, which runs the `run()` method
-    }
-
-    @Override
-    public void run() {
-        // Calculate the time interval between frames in nanoseconds.
-        // 1 second = 1,000,000,000 nanoseconds. FPS will defines how many frames should be drawn per second.
-        double drawInterval = 1000000000.0 / FPS; // Time per frame (in nanoseconds) to achieve the target FPS
-        double delta = 0;                         // Keeps track of how much time has passed since the last frame.
-        long lastTime = System.nanoTime();        // Records the current time when the loop starts (in nanoseconds).
-
-        // Main game loop
-        while (gameThread != null) { // Keep running the loop as long as the game thread is active
-            long currentTime = System.nanoTime();               // Record the current time in each iteration of the loop
-            delta += (currentTime - lastTime) / drawInterval;   // Calculate the elapsed time since the last frame
-            lastTime = currentTime;                             // Update `lastTime` to the current time
-
-            if (delta >= 1) {               // If enough time has passed for one frame (delta >= 1)
-                view.repaint();             // Request the game view to redraw the game board
-                delta--;                    // Reduce `delta` by 1 to account for the processed frame
-            }
+        // Nothing runs between frames: the view repaints when the model or the drag state changes
+        view.markAllDirty();
+        repaintScheduler.requestRepaint();
+    }
+
+    // Called by the view after each paint of the board
+    public void frameRendered() {
+        if (repaintScheduler != null) { // The view can paint before the constructor finishes
+            repaintScheduler.frameRendered();
+        }
+        if (dropStart != 0) {
+            Metrics.record(Metrics.DROP, dropStart);
+            dropStart = 0;
         }
     }
 
+    public RepaintScheduler getRepaintScheduler() {
+        return repaintScheduler;
+    }
+
+    // Print the frame rate and process CPU load measured since the last call
+    public void printRenderStats() {
+        double cpu = repaintScheduler.getCpuLoad();
+        GameLog.log(GameLog.INFO, "render.stats", String.format("Frame rate: %.1f fps, CPU: %s, animating: %b",
+                repaintScheduler.getFrameRate(),
+                cpu < 0 ? "unknown" : String.format("%.1f%%", cpu * 100),
+                repaintScheduler.isAnimating()));
+    }
+
+    // Write count, p50, p90, p99 and max of every measured operation to a time-stamped file
+    public void dumpMetrics() {
+        String file = "metrics-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".txt";
+        try {
+            Metrics.dump(Paths.get(file));
+            GameLog.log(GameLog.INFO, "metrics.dumped", file);
+        } catch (IOException e) {
+            GameLog.log(GameLog.ERROR, "metrics.failed", file + ": " + e.getMessage());
+        }
+    }
 
     // Method to save the game state
     public void saveGame() {
@@ -170,23 +452,38 @@ public class GameController implements Runnable {
 
     // Method to load the game state
     public void loadGame() {
+        if (computer != null) {
+            computer.stop();
+            computerRequest++;
+        }
         model.loadBoard();
         currentTurn = model.getCurrentTurn(); // Update the current turn from the model
-        System.out.println("Loaded currentTurn: " + (currentTurn == RED ? "Red" : "Blue"));
+        journalGameStart(); // The loaded position starts a new game in the journal
         
         // Show the turn text after loading
         view.showTurnText((currentTurn == RED ? "Red" : "Blue") + "'s Turn");
         
-        view.repaint(); // Refresh the view after loading
+        view.markAllDirty();
+        repaintScheduler.requestRepaint(); // Refresh the view after loading
+        refreshAnalysis();
+        requestComputerMove();
     }
 
-    public ArrayList<Piece> getPiecesList() {
-        return model.getPiecesList();
+    // The board to draw, safe to read from any thread
+    public PositionSnapshot getSnapshot() {
+        return model.getSnapshot();
     }
 
     // Method to handle the end of the game
     private void endGame(String winner) {
-        System.out.println(winner + " wins!");
+        GameLog.log(GameLog.INFO, "game.over", winner + " wins");
+        if (journal != null) {
+            try {
+                journal.close(); // Make the final move durable before exiting
+            } catch (IOException e) {
+                GameLog.log(GameLog.ERROR, "journal.failed", e.getMessage());
+            }
+        }
         JOptionPane.showMessageDialog(view.getFrame(), winner + " wins!", "Game Over", JOptionPane.INFORMATION_MESSAGE);
         System.exit(0); // Exit the game
     }
@@ -199,20 +496,24 @@ public class GameController implements Runnable {
         return model;
     }
 
-    private List<Point> calculateMovableTiles(Piece piece) {
+    private List<Point> calculateMovableTiles(int col, int row) {
+        return calculateMovableTiles(model, col, row, view.isFlipped() && currentTurn == GameModel.RED, moveBuffer);
+    }
+
+    // Target tiles of the piece on (fromCol, fromRow) in view coordinates, mirrored when the board is shown flipped
+    static List<Point> calculateMovableTiles(GameModel model, int fromCol, int fromRow, boolean flipped, int[] moveBuffer) {
         List<Point> movableTiles = new ArrayList<>();
-        Piece[][] board = model.getPieceArray();
-
-        for (int row = 0; row < board.length; row++) {
-            for (int col = 0; col < board[row].length; col++) {
-                if (piece.isMoveValid(piece.getRow(), piece.getCol(), row, col, board)) {
-                    // Adjust for flipped board
-                    if (view.isFlipped() && currentTurn == GameModel.RED) {
-                        movableTiles.add(new Point(4 - col, 7 - row));
-                    } else {
-                        movableTiles.add(new Point(col, row));
-                    }
-                }
+        int count = model.generateMoves(fromCol, fromRow, moveBuffer);
+
+        for (int i = 0; i < count; i++) {
+            int to = Move.to(moveBuffer[i]);
+            int col = Position.col(to);
+            int row = Position.row(to);
+            // Adjust for flipped board
+            if (flipped) {
+                movableTiles.add(new Point(4 - col, 7 - row));
+            } else {
+                movableTiles.add(new Point(col, row));
             }
         }
         return movableTiles;
@@ -0,0 +1,302 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Levelled game event log. An event is a name, an optional detail and up to three numeric fields,
+// e.g. log(DEBUG, "move.rejected", "own piece", "from", 12, "to", 17).
+// Callers copy them into a preallocated ring buffer; a background thread formats them and writes
+// them to the sink, so a disabled level costs one comparison and an enabled one allocates nothing
+// as long as the arguments are constants or primitives. When the ring is full events are dropped
+// and counted rather than making the game wait.
+// Configured with -Dchess.log.level=trace|debug|info|warn|error|off (default info) and
+// -Dchess.log.file=<file> (default: the console), or the setters below.
+public final class GameLog {
+    public static final int TRACE = 0;
+    public static final int DEBUG = 1;
+    public static final int INFO = 2;
+    public static final int WARN = 3;
+    public static final int ERROR = 4;
+    public static final int OFF = 5;
+
+    private static final String[] LEVEL_NAMES = {"TRACE", "DEBUG", "INFO", "WARN", "ERROR"};
+    private static final int CAPACITY = 4096;               // Power of two
+    private static final long START = System.nanoTime();
+
+    // Destination of formatted lines, used by the writer thread only
+    public interface Sink {
+        void write(String line) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    private static final class Event {
+        volatile long sequence = -1;    // Sequence number once the event is complete
+        long nanos;
+        int level;
+        String name;
+        String detail;
+        int fields;
+        final String[] keys = new String[3];
+        final long[] values = new long[3];
+    }
+
+    private static volatile int level = parseLevel(System.getProperty("chess.log.level", "info"));
+    private static volatile Sink sink;
+    private static final Event[] ring = new Event[CAPACITY];
+    private static final AtomicLong head = new AtomicLong();    // Next sequence to claim
+    private static volatile long tail = 0;                      // Next sequence to write out
+    private static volatile boolean idle = false;               // Writer parked or about to park on an empty ring
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final Thread writer;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            ring[i] = new Event();
+        }
+        String file = System.getProperty("chess.log.file");
+        try {
+            sink = file != null ? fileSink(file) : consoleSink(System.out);
+        } catch (IOException e) {
+            System.err.println("Cannot open log file " + file + ": " + e.getMessage());
+            sink = consoleSink(System.out);
+        }
+        writer = new Thread(GameLog::drain, "game-log");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(GameLog::flush));
+    }
+
+    private GameLog() {
+    }
+
+    public static boolean isEnabled(int eventLevel) {
+        return eventLevel >= level;
+    }
+
+    public static void setLevel(int newLevel) {
+        level = newLevel;
+    }
+
+    public static int getLevel() {
+        return level;
+    }
+
+    public static void setSink(Sink newSink) {
+        flush();
+        sink = newSink;
+    }
+
+    // Events lost because the ring was full
+    public static long getDropped() {
+        return dropped.get();
+    }
+
+    public static void log(int eventLevel, String name) {
+        if (eventLevel >= level) {
+            publish(eventLevel, name, null, 0, null, 0, null, 0, null, 0);
+        }
+    }
+
+    public static void log(int eventLevel, String name, String detail) {
+        if (eventLevel >= level) {
+            publish(eventLevel, name, detail, 0, null, 0, null, 0, null, 0);
+        }
+    }
+
+    public static void log(int eventLevel, String name, String detail, String key, long value) {
+        if (eventLevel >= level) {
+            publish(eventLevel, name, detail, 1, key, value, null, 0, null, 0);
+        }
+    }
+
+    public static void log(int eventLevel, String name, String detail, String key1, long value1,
+                           String key2, long value2) {
+        if (eventLevel >= level) {
+            publish(eventLevel, name, detail, 2, key1, value1, key2, value2, null, 0);
+        }
+    }
+
+    public static void log(int eventLevel, String name, String detail, String key1, long value1,
+                           String key2, long value2, String key3, long value3) {
+        if (eventLevel >= level) {
+            publish(eventLevel, name, detail, 3, key1, value1, key2, value2, key3, value3);
+        }
+    }
+
+    // Wait until every event logged so far has been written and flushed
+    public static void flush() {
+        long target = head.get();
+        while (tail < target && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(100_000);
+        }
+        try {
+            sink.flush();
+        } catch (IOException e) {
+            // Nowhere left to report it
+        }
+    }
+
+    private static void publish(int eventLevel, String name, String detail, int fields,
+                                String key1, long value1, String key2, long value2, String key3, long value3) {
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - tail >= CAPACITY) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!head.compareAndSet(sequence, sequence + 1));
+
+        Event event = ring[(int) (sequence & (CAPACITY - 1))];
+        event.nanos = System.nanoTime();
+        event.level = eventLevel;
+        event.name = name;
+        event.detail = detail;
+        event.fields = fields;
+        event.keys[0] = key1;
+        event.values[0] = value1;
+        event.keys[1] = key2;
+        event.values[1] = value2;
+        event.keys[2] = key3;
+        event.values[2] = value3;
+        event.sequence = sequence; // Publish
+        if (idle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    // Writer thread: format events in order, flushing whenever the ring runs empty and then parking
+    // until publish wakes it. `idle` is set before the last look at the ring, so an event published
+    // in between either is seen here or sees the flag and unparks.
+    private static void drain() {
+        StringBuilder line = new StringBuilder(128);
+        boolean unflushed = false;
+        while (true) {
+            Event event = ring[(int) (tail & (CAPACITY - 1))];
+            if (event.sequence != tail) {
+                if (unflushed) {
+                    try {
+                        sink.flush();
+                    } catch (IOException e) {
+                        System.err.println("Game log failed: " + e.getMessage());
+                    }
+                    unflushed = false;
+                }
+                idle = true;
+                if (event.sequence != tail) {
+                    LockSupport.park();
+                }
+                idle = false;
+                continue;
+            }
+            line.setLength(0);
+            format(event, line);
+            event.name = null;
+            event.detail = null;
+            tail = tail + 1; // Only this thread writes tail
+            try {
+                sink.write(line.toString());
+                unflushed = true;
+            } catch (IOException e) {
+                System.err.println("Game log failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void format(Event event, StringBuilder line) {
+        long millis = (event.nanos - START) / 1_000_000;
+        line.append(millis / 1000).append('.');
+        long fraction = millis % 1000;
+        if (fraction < 100) {
+            line.append(fraction < 10 ? "00" : "0");
+        }
+        line.append(fraction).append(' ').append(LEVEL_NAMES[event.level]).append(' ').append(event.name);
+        if (event.detail != null) {
+            line.append(' ').append(event.detail);
+        }
+        for (int i = 0; i < event.fields; i++) {
+            line.append(' ').append(event.keys[i]).append('=').append(event.values[i]);
+        }
+    }
+
+    public static int parseLevel(String name) {
+        switch (name.toLowerCase()) {
+            case "trace":
+                return TRACE;
+            case "debug":
+                return DEBUG;
+            case "warn":
+                return WARN;
+            case "error":
+                return ERROR;
+            case "off":
+                return OFF;
+            default:
+                return INFO;
+        }
+    }
+
+    public static Sink consoleSink(PrintStream out) {
+        return new Sink() {
+            @Override
+            public void write(String line) {
+                out.println(line);
+            }
+
+            @Override
+            public void flush() {
+                out.flush();
+            }
+        };
+    }
+
+    public static Sink fileSink(String file) throws IOException {
+        Writer out = new BufferedWriter(new FileWriter(file, true));
+        return new Sink() {
+            @Override
+            public void write(String line) throws IOException {
+                out.write(line);
+                out.write(System.lineSeparator());
+            }
+
+            @Override
+            public void flush() throws IOException {
+                out.flush();
+            }
+        };
+    }
+
+    // Keeps the last `lines` lines in memory instead of writing them anywhere
+    public static final class MemorySink implements Sink {
+        private final String[] lines;
+        private long count = 0;
+
+        public MemorySink(int lines) {
+            this.lines = new String[lines];
+        }
+
+        @Override
+        public synchronized void write(String line) {
+            lines[(int) (count++ % lines.length)] = line;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        // The retained lines, oldest first
+        public synchronized String[] lines() {
+            int size = (int) Math.min(count, lines.length);
+            String[] copy = new String[size];
+            for (int i = 0; i < size; i++) {
+                copy[i] = lines[(int) ((count - size + i) % lines.length)];
+            }
+            return copy;
+        }
+    }
+}
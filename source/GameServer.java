@@ -0,0 +1,363 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+// Headless server hosting any number of independent matches on one non-blocking selector thread.
+// Matches hold only a Position, and moves are checked against the move generator.
+// Protocol: one ASCII command per line, colors are "red" or "blue", moves are written like "c7-c6".
+//   client: NEW [red|blue]    server: MATCH <id> <color>          seat taken in a new match
+//           JOIN <id>                 MATCH <id> <color>          the free seat of match <id>
+//                                     START <id> <position hex>   to both players once both are seated
+//           MOVE <move>               MOVED <move> <color>        to both players
+//                                     OVER <red|blue|draw> [forfeit]
+//           STATS                     STATS connections=<n> matches=<n> moves=<n>
+//           QUIT                      ERROR <reason>              after any rejected command
+// Usage: java GameServer [port]
+public class GameServer implements Runnable {
+    public static final int DEFAULT_PORT = 5858;
+    private static final int MAX_LINE = 256;
+    private static final int MAX_PENDING_OUTPUT = 64 * 1024;   // Slower clients are disconnected
+
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Map<Integer, Match> matches = new HashMap<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(4096);
+    private final int[] moveBuffer = new int[MoveGenerator.MAX_MOVES];
+    private int nextMatchId = 1;
+    private int connections = 0;
+    private long moves = 0;
+    private volatile boolean running = true;
+
+    private static final class Connection {
+        final SocketChannel channel;
+        SelectionKey key;
+        final byte[] line = new byte[MAX_LINE];
+        int lineLength = 0;
+        ByteBuffer out = ByteBuffer.allocate(512);
+        Match match;
+        int color = Position.NONE;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private static final class Match {
+        final int id;
+        final Position position = new Position(16);
+        final Connection[] players = new Connection[2];
+        boolean started;
+
+        Match(int id) {
+            this.id = id;
+            position.setInitial();
+        }
+    }
+
+    public GameServer(int port) throws IOException {
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port), 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        GameServer gameServer = new GameServer(port);
+        GameLog.log(GameLog.INFO, "server.started", null, "port", gameServer.getPort());
+        gameServer.run();
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    // Stop the selector loop from any thread
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            read(connection);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            flush(connection);
+                        }
+                    } catch (IOException e) {
+                        close(connection);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            GameLog.log(GameLog.ERROR, "server.failed", e.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                try {
+                    key.channel().close();
+                } catch (IOException e) {
+                    // Shutting down anyway
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // Shutting down anyway
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            connections++;
+        }
+    }
+
+    private void read(Connection connection) throws IOException {
+        readBuffer.clear();
+        int read = connection.channel.read(readBuffer);
+        if (read < 0) {
+            close(connection);
+            return;
+        }
+        readBuffer.flip();
+        while (readBuffer.hasRemaining()) {
+            byte b = readBuffer.get();
+            if (b == '\n') {
+                int length = connection.lineLength;
+                if (length > 0 && connection.line[length - 1] == '\r') {
+                    length--;
+                }
+                connection.lineLength = 0;
+                handle(connection, new String(connection.line, 0, length, StandardCharsets.US_ASCII));
+                if (!connection.channel.isOpen()) {
+                    return;
+                }
+            } else if (connection.lineLength == MAX_LINE) {
+                send(connection, "ERROR line too long");
+                close(connection);
+                return;
+            } else {
+                connection.line[connection.lineLength++] = b;
+            }
+        }
+    }
+
+    private void handle(Connection connection, String line) {
+        String[] parts = line.trim().split(" +");
+        switch (parts[0].toUpperCase()) {
+            case "NEW":
+                newMatch(connection, parts.length > 1 ? parseColor(parts[1]) : Position.RED);
+                break;
+            case "JOIN":
+                join(connection, parts);
+                break;
+            case "MOVE":
+                move(connection, parts.length > 1 ? Move.parse(parts[1]) : Move.NONE);
+                break;
+            case "STATS":
+                send(connection, "STATS connections=" + connections + " matches=" + matches.size() + " moves=" + moves);
+                break;
+            case "QUIT":
+                close(connection);
+                break;
+            case "":
+                break;
+            default:
+                send(connection, "ERROR unknown command " + parts[0]);
+        }
+    }
+
+    private void newMatch(Connection connection, int color) {
+        if (connection.match != null) {
+            send(connection, "ERROR already in match " + connection.match.id);
+            return;
+        }
+        if (color == Position.NONE) {
+            send(connection, "ERROR unknown color");
+            return;
+        }
+        Match match = new Match(nextMatchId++);
+        matches.put(match.id, match);
+        seat(connection, match, color);
+    }
+
+    private void join(Connection connection, String[] parts) {
+        if (connection.match != null) {
+            send(connection, "ERROR already in match " + connection.match.id);
+            return;
+        }
+        Match match = null;
+        if (parts.length > 1 && parts[1].matches("\\d{1,9}")) {
+            match = matches.get(Integer.parseInt(parts[1]));
+        }
+        if (match == null || match.started) {
+            send(connection, "ERROR no open match " + (parts.length > 1 ? parts[1] : ""));
+            return;
+        }
+        seat(connection, match, match.players[Position.RED] == null ? Position.RED : Position.BLUE);
+        match.started = true;
+        String start = "START " + match.id + " " + PositionCodec.toHex(match.position);
+        send(match.players[Position.RED], start);
+        send(match.players[Position.BLUE], start);
+    }
+
+    private void seat(Connection connection, Match match, int color) {
+        match.players[color] = connection;
+        connection.match = match;
+        connection.color = color;
+        send(connection, "MATCH " + match.id + " " + colorName(color));
+    }
+
+    private void move(Connection connection, int move) {
+        Match match = connection.match;
+        if (match == null || !match.started) {
+            send(connection, "ERROR no match in progress");
+            return;
+        }
+        Position position = match.position;
+        if (position.getSideToMove() != connection.color) {
+            send(connection, "ERROR not your turn");
+            return;
+        }
+        int legal = MoveGenerator.legalMove(position, move, moveBuffer);
+        if (legal == Move.NONE) {
+            send(connection, "ERROR illegal move");
+            return;
+        }
+
+        position.makeMove(legal);
+        position.clearHistory();
+        moves++;
+        String moved = "MOVED " + Move.toString(legal) + " " + colorName(connection.color);
+        send(match.players[Position.RED], moved);
+        send(match.players[Position.BLUE], moved);
+
+        if (!position.hasSau(Position.RED)) {
+            finish(match, "OVER blue");
+        } else if (!position.hasSau(Position.BLUE)) {
+            finish(match, "OVER red");
+        } else if (MoveGenerator.generate(position, moveBuffer) == 0) {
+            finish(match, "OVER draw");
+        }
+    }
+
+    // Announce the result and dissolve the match; the players stay connected
+    private void finish(Match match, String result) {
+        matches.remove(match.id);
+        for (Connection player : match.players) {
+            if (player != null) {
+                player.match = null;
+                player.color = Position.NONE;
+                send(player, result);
+            }
+        }
+    }
+
+    // Queue `line` and write as much as the socket takes now; the selector writes the rest
+    private void send(Connection connection, String line) {
+        if (connection == null || !connection.channel.isOpen()) {
+            return;
+        }
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.US_ASCII);
+        if (connection.out.remaining() < bytes.length) {
+            int needed = connection.out.position() + bytes.length;
+            if (needed > MAX_PENDING_OUTPUT) {
+                close(connection);
+                return;
+            }
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(needed, connection.out.capacity() * 2));
+            connection.out.flip();
+            larger.put(connection.out);
+            connection.out = larger;
+        }
+        connection.out.put(bytes);
+        try {
+            flush(connection);
+        } catch (IOException e) {
+            close(connection);
+        }
+    }
+
+    private void flush(Connection connection) throws IOException {
+        ByteBuffer out = connection.out;
+        out.flip();
+        try {
+            connection.channel.write(out);
+        } finally {
+            out.compact();
+        }
+        if (connection.key.isValid()) {
+            connection.key.interestOps(out.position() > 0
+                    ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+
+    private void close(Connection connection) {
+        if (!connection.channel.isOpen()) {
+            return;
+        }
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            // The connection is gone either way
+        }
+        connections--;
+        Match match = connection.match;
+        if (match != null) {
+            match.players[connection.color] = null;
+            if (match.started) {
+                finish(match, "OVER " + colorName(1 - connection.color) + " forfeit");
+            } else {
+                matches.remove(match.id);
+            }
+        }
+    }
+
+    static String colorName(int color) {
+        return color == Position.RED ? "red" : "blue";
+    }
+
+    static int parseColor(String name) {
+        switch (name.toLowerCase()) {
+            case "red":
+                return Position.RED;
+            case "blue":
+                return Position.BLUE;
+            default:
+                return Position.NONE;
+        }
+    }
+}
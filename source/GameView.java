@@ -3,6 +3,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
 import javax.swing.*;
 import java.util.List;
 import java.util.ArrayList;
@@ -13,12 +14,18 @@ public class GameView {
     private final int rows = 8;         // Number of rows
     private final JFrame frame;
     private final JPanel checkerboardPanel;
+    private final JPanel evalBar;       // Optional evaluation bar beside the board
+    private final JPanel analysisPanel; // Side panel for the background analysis
+    private final JLabel analysisLabel;
+    private final JToggleButton analysisButton;
     private final JLabel turnLabel;     // Label to display the turn
 
     private int highlightedCol = -1;    // Column of the highlighted tile
     private int highlightedRow = -1;    // Row of the highlighted tile
 
     private Piece draggingPiece = null; // The piece being dragged
+    private int draggingCol = -1;       // Board square it was picked up from
+    private int draggingRow = -1;
     private int draggingX = 0;          // Current X position of the dragged piece
     private int draggingY = 0;          // Current Y position of the dragged piece
 
@@ -28,6 +35,9 @@ public class GameView {
 
     private List<Point> movableTiles = new ArrayList<>(); // List to store movable tiles
 
+    private BufferedImage boardLayer = null;    // Checkerboard rendered once, then copied
+    private Rectangle dirtyRegion = null;       // Board area owed a repaint, in panel pixels
+
     public GameView(GameController controller) {
         this.controller = controller;
     
@@ -50,23 +60,60 @@ public class GameView {
         checkerboardPanel = new JPanel() {
             @Override
             protected void paintComponent(Graphics g) {
+                long start = System.nanoTime();
                 super.paintComponent(g);
                 drawCheckerboard(g);
                 drawHighlight(g);
-                drawPieces(g);
-                drawDraggingPiece(g); // Draw the dragged piece on top
+                PositionSnapshot snapshot = controller.getSnapshot(); // One consistent board per frame
+                drawPieces(g, snapshot);
+                drawDraggingPiece(g, snapshot); // Draw the dragged piece on top
+                Metrics.record(Metrics.PAINT, start);
+                controller.frameRendered();
             }
         };
     
         // Set the size of the checkerboard based on tiles
         checkerboardPanel.setPreferredSize(new Dimension(cols * tileSize, rows * tileSize));
         container.add(checkerboardPanel, new GridBagConstraints());
+
+        // Red's share of the bar grows with the evaluation from Red's point of view
+        evalBar = new JPanel() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                drawEvalBar(g, controller.getSnapshot().evaluate());
+            }
+        };
+        evalBar.setPreferredSize(new Dimension(40, rows * tileSize));
+        evalBar.setVisible(false);
+        GridBagConstraints barConstraints = new GridBagConstraints();
+        barConstraints.gridx = 1;
+        barConstraints.insets = new Insets(0, 10, 0, 0);
+        container.add(evalBar, barConstraints);
         frame.add(container);
+
+        // Analysis side panel, filled by controller.setAnalysis
+        analysisPanel = new JPanel(new BorderLayout());
+        analysisPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        analysisPanel.setPreferredSize(new Dimension(260, rows * tileSize));
+        JLabel analysisTitle = new JLabel("Analysis");
+        analysisTitle.setFont(new Font("Arial", Font.BOLD, 24));
+        analysisPanel.add(analysisTitle, BorderLayout.NORTH);
+        analysisLabel = new JLabel();
+        analysisLabel.setFont(new Font("Monospaced", Font.PLAIN, 16));
+        analysisLabel.setVerticalAlignment(SwingConstants.TOP);
+        analysisPanel.add(analysisLabel, BorderLayout.CENTER);
+        analysisPanel.setVisible(false);
+        frame.add(analysisPanel, BorderLayout.EAST);
     
         // Create buttons for saving, loading, and flipping
         JButton saveButton = new JButton("Save Game");
         JButton loadButton = new JButton("Load Game");
         JToggleButton flipButton = new JToggleButton("Flip OFF"); // Toggle button for flipping
+        JToggleButton evalButton = new JToggleButton("Eval OFF"); // Toggle button for the evaluation bar
+        analysisButton = new JToggleButton("Analysis OFF"); // Toggle button for the analysis panel
+        JComboBox<String> computerBox = new JComboBox<>(new String[] {"Computer: Off", "Computer: Red", "Computer: Blue"});
+        computerBox.setFocusable(false); // Keep key presses going to the frame
     
         // Add action listeners for the buttons
         saveButton.addActionListener(new ActionListener() {
@@ -94,6 +141,31 @@ public class GameView {
                     isFlipped = false;
                 }
                 repaint(); // Repaint to reflect the flip state
+                repaintEvalBar(); // Red's end of the bar follows the board
+            }
+        });
+    
+        evalButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                evalButton.setText(evalButton.isSelected() ? "Eval ON" : "Eval OFF");
+                evalBar.setVisible(evalButton.isSelected());
+                evalBar.revalidate();
+            }
+        });
+
+        analysisButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                controller.setAnalysis(analysisButton.isSelected());
+            }
+        });
+
+        computerBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                // Index 1 is Red, 2 is Blue, anything else turns the computer off
+                controller.setComputerPlayer(computerBox.getSelectedIndex() - 1);
             }
         });
     
@@ -102,6 +174,9 @@ public class GameView {
         buttonPanel.add(saveButton);
         buttonPanel.add(loadButton);
         buttonPanel.add(flipButton); // Add the flip button
+        buttonPanel.add(evalButton);
+        buttonPanel.add(analysisButton);
+        buttonPanel.add(computerBox);
     
         // Add the button panel to the frame
         frame.add(buttonPanel, BorderLayout.SOUTH);
@@ -114,6 +189,16 @@ public class GameView {
                     controller.saveGame();
                 } else if (e.getKeyCode() == KeyEvent.VK_L) { // Press 'L' to load
                     controller.loadGame();
+                } else if (e.getKeyCode() == KeyEvent.VK_H) { // Press 'H' for a hint from the opening book
+                    controller.showHint();
+                } else if (e.getKeyCode() == KeyEvent.VK_M) { // Press 'M' to write latency metrics to a file
+                    controller.dumpMetrics();
+                } else if (e.getKeyCode() == KeyEvent.VK_E) { // Press 'E' to show or hide the evaluation bar
+                    evalButton.doClick();
+                } else if (e.getKeyCode() == KeyEvent.VK_A) { // Press 'A' to start or stop the analysis
+                    analysisButton.doClick();
+                } else if (e.getKeyCode() == KeyEvent.VK_F) { // Press 'F' to print frame rate and CPU load
+                    controller.printRenderStats();
                 } else if (e.getKeyCode() == KeyEvent.VK_ESCAPE) { // Press 'ESC' to exit the application
                     frame.dispose();
                     System.exit(0);
@@ -136,18 +221,28 @@ public class GameView {
     }
     
     private void drawCheckerboard(Graphics g) {
-        Graphics2D g2d = (Graphics2D) g;
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                g2d.setColor((r + c) % 2 == 0 ? Color.WHITE : Color.BLACK);
-                g2d.fillRect(c * tileSize, r * tileSize, tileSize, tileSize);
+        if (boardLayer == null) {
+            GraphicsConfiguration config = checkerboardPanel.getGraphicsConfiguration();
+            boardLayer = config != null
+                    ? config.createCompatibleImage(cols * tileSize, rows * tileSize)
+                    : new BufferedImage(cols * tileSize, rows * tileSize, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2d = boardLayer.createGraphics();
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    g2d.setColor((r + c) % 2 == 0 ? Color.WHITE : Color.BLACK);
+                    g2d.fillRect(c * tileSize, r * tileSize, tileSize, tileSize);
+                }
             }
+            g2d.dispose();
         }
+        // Only the clipped (dirty) part of the layer is actually copied
+        g.drawImage(boardLayer, 0, 0, null);
     }
 
     private void drawHighlight(Graphics g) {
         // Highlight the selected tile
-        if (highlightedCol != -1 && highlightedRow != -1) {
+        if (highlightedCol != -1 && highlightedRow != -1
+                && g.hitClip(highlightedCol * tileSize, highlightedRow * tileSize, tileSize, tileSize)) {
             Graphics2D g2d = (Graphics2D) g;
             g2d.setColor(new Color(255, 255, 0, 128)); // Semi-transparent yellow
             g2d.fillRect(highlightedCol * tileSize, highlightedRow * tileSize, tileSize, tileSize);
@@ -155,93 +250,203 @@ public class GameView {
 
         // Highlight movable tiles
         for (Point tile : movableTiles) {
+            if (!g.hitClip(tile.x * tileSize, tile.y * tileSize, tileSize, tileSize)) {
+                continue;
+            }
             Graphics2D g2d = (Graphics2D) g;
             g2d.setColor(new Color(255, 255, 0, 128)); // Semi-transparent yellow
             g2d.fillRect(tile.x * tileSize, tile.y * tileSize, tileSize, tileSize);
         }
     }
 
-    private void drawPieces(Graphics g) {
+    private void drawPieces(Graphics g, PositionSnapshot snapshot) {
         Graphics2D g2d = (Graphics2D) g;
-        for (Piece piece : controller.getPiecesList()) {
-            if (piece != draggingPiece && piece.getImage() != null) {
-                int col = piece.getCol();
-                int row = piece.getRow();
-                Image image = piece.getImage(); // Get the default image of the piece
-    
-                // Flip position and update image if the board is flipped
-                if (shouldFlipBoard()) {
+        boolean flipped = isFlipped && snapshot.getSideToMove() == GameModel.RED;
+        for (int boardRow = 0; boardRow < rows; boardRow++) {
+            for (int boardCol = 0; boardCol < cols; boardCol++) {
+                if (boardCol == draggingCol && boardRow == draggingRow && draggingPiece != null) {
+                    continue; // Drawn at the mouse instead
+                }
+                int col = boardCol;
+                int row = boardRow;
+
+                // Flip position if the board is flipped
+                if (flipped) {
                     col = cols - 1 - col;
                     row = rows - 1 - row;
-    
-                    // Replace the image with the flipped version if necessary
-                    if (piece instanceof Ram && piece.getColor() == GameModel.RED) {
-                        image = controller.getModel().getFlipRedRamImage();
-                    } else if (piece instanceof Ram && piece.getColor() == GameModel.BLUE) {
-                        image = controller.getModel().getFlipBlueRamImage();
-                    } else if (piece instanceof Sau && piece.getColor() == GameModel.RED) {
-                        image = controller.getModel().getFlipRedSauImage();
-                    } else if (piece instanceof Sau && piece.getColor() == GameModel.BLUE) {
-                        image = controller.getModel().getFlipBlueSauImage();
-                    }
-                    // Add other piece types here if needed
                 }
-    
-                // Draw the piece
-                g2d.drawImage(image, col * tileSize + 10, row * tileSize + 10, tileSize - 20, tileSize - 20, null);
+
+                // Skip squares outside the dirty region
+                if (!g.hitClip(col * tileSize, row * tileSize, tileSize, tileSize)) {
+                    continue;
+                }
+
+                Piece piece = snapshot.pieceAt(boardCol, boardRow);
+                if (piece != null) {
+                    // Draw the piece from the pre-scaled sprite, using the flipped artwork when needed
+                    g2d.drawImage(pieceSprite(piece, flipped), col * tileSize + 10, row * tileSize + 10, null);
+                }
             }
         }
     }
     
-    private void drawDraggingPiece(Graphics g) {
+    private void drawDraggingPiece(Graphics g, PositionSnapshot snapshot) {
         if (draggingPiece != null) {
             Graphics2D g2d = (Graphics2D) g;
             g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.7f)); // Semi-transparent
 
-            Image image = draggingPiece.getImage(); // Default image
-
-            // Check if the board is flipped and use the flipped image if necessary
-            if (shouldFlipBoard()) {
-                if (draggingPiece instanceof Ram && draggingPiece.getColor() == GameModel.RED) {
-                    image = controller.getModel().getFlipRedRamImage();
-                } else if (draggingPiece instanceof Ram && draggingPiece.getColor() == GameModel.BLUE) {
-                    image = controller.getModel().getFlipBlueRamImage();
-                } else if (draggingPiece instanceof Sau && draggingPiece.getColor() == GameModel.RED) {
-                    image = controller.getModel().getFlipRedSauImage();
-                } else if (draggingPiece instanceof Sau && draggingPiece.getColor() == GameModel.BLUE) {
-                    image = controller.getModel().getFlipBlueSauImage();
-                }
-                // Add other piece types here if needed
-            }
-
-            g2d.drawImage(image, draggingX - tileSize / 2, draggingY - tileSize / 2, tileSize - 20, tileSize - 20, null);
+            g2d.drawImage(pieceSprite(draggingPiece, isFlipped && snapshot.getSideToMove() == GameModel.RED), draggingX - tileSize / 2, draggingY - tileSize / 2, null);
             g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.0f));
         }
     }
 
+    // Pieces carry no images: the shared cache maps color and type to the sprite at the current size
+    private Image pieceSprite(Piece piece, boolean flipped) {
+        String name = SpriteCache.name(piece.getColor(), piece.getType(), flipped);
+        return SpriteCache.getInstance().scaled(name, tileSize - 20);
+    }
+
+    // Red fills the bar from Red's side of the board, Blue the rest; the score is shown in Rams
+    private void drawEvalBar(Graphics g, int score) {
+        int height = evalBar.getHeight();
+        int width = evalBar.getWidth();
+        int red = (int) Math.round(height / (1 + Math.exp(-score / 300.0)));
+        boolean redAtTop = !shouldFlipBoard();
+        g.setColor(Color.RED);
+        g.fillRect(0, redAtTop ? 0 : height - red, width, red);
+        g.setColor(Color.BLUE);
+        g.fillRect(0, redAtTop ? red : 0, width, height - red);
+        g.setColor(Color.WHITE);
+        g.setFont(new Font("Arial", Font.BOLD, 12));
+        String text = String.format("%+.1f", score / 100.0);
+        g.drawString(text, (width - g.getFontMetrics().stringWidth(text)) / 2, height / 2);
+    }
+
+    public void setAnalysisShown(boolean shown) {
+        analysisButton.setSelected(shown);
+        analysisButton.setText(shown ? "Analysis ON" : "Analysis OFF");
+        analysisPanel.setVisible(shown);
+        frame.revalidate();
+    }
+
+    // One finished search iteration, score from Red's point of view; called on the EDT
+    public void showAnalysis(int depth, int score, int bestMove, long nodes, long elapsedMillis) {
+        String result;
+        if (Math.abs(score) >= Search.MATE - Search.MAX_PLY) {
+            result = (score > 0 ? "Red" : "Blue") + " wins in " + (Search.MATE - Math.abs(score)) + " plies";
+        } else {
+            result = String.format("%+.2f", score / 100.0);
+        }
+        analysisLabel.setText("<html>Best: " + Move.toString(bestMove)
+                + "<br>Score: " + result
+                + "<br>Depth: " + depth
+                + "<br>Nodes: " + nodes
+                + "<br>Speed: " + nodes / Math.max(1, elapsedMillis) + " kN/s"
+                + "<br>Time: " + String.format("%.1f s", elapsedMillis / 1000.0) + "</html>");
+    }
+
+    public void clearAnalysis() {
+        analysisLabel.setText("<html>Thinking...</html>");
+    }
+
     public void highlightTile(int col, int row) {
+        markTileDirty(highlightedCol, highlightedRow);
         highlightedCol = col;
         highlightedRow = row;
+        markTileDirty(col, row);
     }
 
     public void clearHighlight() {
+        markTileDirty(highlightedCol, highlightedRow);
         highlightedCol = -1;
         highlightedRow = -1;
-        repaint(); // Force the view to update and remove the highlight
+        flushRepaint(); // Force the view to update and remove the highlight
     }
 
-    public void setDraggingPiece(Piece piece, int x, int y) {
-        draggingPiece = piece;
+    // Start dragging the piece on board square (col, row) from panel point (x, y)
+    public void setDraggingPiece(int col, int row, int x, int y) {
+        draggingPiece = controller.getSnapshot().pieceAt(col, row);
+        draggingCol = col;
+        draggingRow = row;
         draggingX = x;
         draggingY = y;
+        markDraggingTileDirty(); // The piece leaves its tile while it is dragged
+        markDirty(draggingBounds());
     }
 
     public void clearDraggingPiece() {
+        if (draggingPiece != null) {
+            markDraggingTileDirty();
+            markDirty(draggingBounds());
+        }
         draggingPiece = null;
+        draggingCol = -1;
+        draggingRow = -1;
     }
 
+    // Repaint the whole board
     public void repaint() {
-        frame.repaint();
+        dirtyRegion = null;
+        checkerboardPanel.repaint();
+    }
+
+    // Repaint whatever has been marked dirty since the last flush
+    public void flushRepaint() {
+        if (dirtyRegion != null) {
+            checkerboardPanel.repaint(dirtyRegion);
+            dirtyRegion = null;
+        }
+    }
+
+    public void markAllDirty() {
+        markDirty(new Rectangle(0, 0, cols * tileSize, rows * tileSize));
+        repaintEvalBar();
+    }
+
+    // Mark the tiles a move touched, in board coordinates. A swap or a flipped board changes more.
+    public void markMoveDirty(int fromCol, int fromRow, int toCol, int toRow, boolean swapped) {
+        if (swapped || isFlipped) {
+            markAllDirty(); // Tor/Xor sprites change, or the board turns around with the turn
+            return;
+        }
+        markTileDirty(fromCol, fromRow);
+        markTileDirty(toCol, toRow);
+        repaintEvalBar();
+    }
+
+    private void repaintEvalBar() {
+        if (evalBar != null && evalBar.isVisible()) {
+            evalBar.repaint();
+        }
+    }
+
+    private void markTileDirty(int col, int row) {
+        if (col >= 0 && row >= 0) {
+            markDirty(new Rectangle(col * tileSize, row * tileSize, tileSize, tileSize));
+        }
+    }
+
+    private void markDraggingTileDirty() {
+        int col = draggingCol;
+        int row = draggingRow;
+        if (shouldFlipBoard()) {
+            col = cols - 1 - col;
+            row = rows - 1 - row;
+        }
+        markTileDirty(col, row);
+    }
+
+    private void markDirty(Rectangle region) {
+        if (dirtyRegion == null) {
+            dirtyRegion = new Rectangle(region);
+        } else {
+            dirtyRegion.add(region);
+        }
+    }
+
+    // Area covered by the dragged sprite
+    private Rectangle draggingBounds() {
+        return new Rectangle(draggingX - tileSize / 2, draggingY - tileSize / 2, tileSize - 20, tileSize - 20);
     }
 
     public JFrame getFrame() {
@@ -253,8 +458,10 @@ public class GameView {
     }
 
     public void updateDraggingPiecePosition(int x, int y) {
+        markDirty(draggingBounds()); // Old position
         draggingX = x;
         draggingY = y;
+        markDirty(draggingBounds()); // New position
 
         // Calculate the closest tile based on the dragging position
         int closestCol = Math.max(0, Math.min(cols - 1, draggingX / tileSize));
@@ -279,12 +486,21 @@ public class GameView {
     }
 
     public void setMovableTiles(List<Point> tiles) {
+        markTilesDirty(movableTiles);
         this.movableTiles = tiles;
-        repaint(); // Repaint to show the movable tiles
+        markTilesDirty(tiles);
+        flushRepaint(); // Repaint to show the movable tiles
     }
 
     public void clearMovableTiles() {
+        markTilesDirty(movableTiles);
         this.movableTiles.clear();
-        repaint(); // Repaint to clear the movable tiles
+        flushRepaint(); // Repaint to clear the movable tiles
+    }
+
+    private void markTilesDirty(List<Point> tiles) {
+        for (Point tile : tiles) {
+            markTileDirty(tile.x, tile.y);
+        }
     }
 }
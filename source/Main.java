@@ -1,7 +1,78 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+
 public class Main {
-    public static void main(String[] args) {
+    // Optional arguments: --computer red|blue to let the computer play a side, --think <ms> for its time per move,
+    // --threads <n> for the number of search threads, --journal <file> to record every move, --sync <n> to fsync
+    // the journal every n moves (0 leaves it to the OS), --resume to continue the last game in the journal,
+    // --book <file> for an opening book used by the computer and the 'H' hint key,
+    // --tablebase <dir> for endgame tables written by TablebaseGenerator, --log-level trace|debug|info|warn|error|off
+    // and --log-file <file> for the game event log, --connect <host>[:port] to play against a remote player
+    // through a GameServer, opening a match for --color red|blue or joining --match <id>, and --analyze to open
+    // the analysis panel
+    public static void main(String[] args) throws IOException {
         GameModel model = new GameModel();                          // Initialize the game model
         GameController controller = new GameController(model);      // Set up the controller
-        controller.startGame();                                     // Start the game loop
+
+        String journalFile = null;
+        int syncEvery = 1;
+        boolean resume = false;
+        boolean analyze = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--resume")) {
+                resume = true;
+            } else if (args[i].equals("--analyze")) {
+                analyze = true;
+            }
+        }
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals("--log-level")) {
+                GameLog.setLevel(GameLog.parseLevel(args[i + 1]));
+            } else if (args[i].equals("--log-file")) {
+                GameLog.setSink(GameLog.fileSink(args[i + 1]));
+            } else if (args[i].equals("--journal")) {
+                journalFile = args[i + 1];
+            } else if (args[i].equals("--book")) {
+                controller.setBook(new OpeningBook(Paths.get(args[i + 1])));
+            } else if (args[i].equals("--tablebase")) {
+                controller.setTablebase(Tablebase.open(Paths.get(args[i + 1])));
+            } else if (args[i].equals("--sync")) {
+                syncEvery = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--think")) {
+                controller.setThinkMillis(Long.parseLong(args[i + 1]));
+            } else if (args[i].equals("--threads")) {
+                controller.setSearchThreads(Integer.parseInt(args[i + 1]));
+            }
+        }
+        if (journalFile != null) {
+            controller.setJournal(new MoveJournal(Paths.get(journalFile), syncEvery), resume);
+        }
+        String server = null;
+        int matchId = 0;
+        int color = GameModel.RED;
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals("--connect")) {
+                server = args[i + 1];
+            } else if (args[i].equals("--match")) {
+                matchId = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--color")) {
+                color = args[i + 1].equalsIgnoreCase("blue") ? GameModel.BLUE : GameModel.RED;
+            }
+        }
+        if (server != null) {
+            int colon = server.lastIndexOf(':');
+            String host = colon < 0 ? server : server.substring(0, colon);
+            int port = colon < 0 ? GameServer.DEFAULT_PORT : Integer.parseInt(server.substring(colon + 1));
+            controller.connect(host, port, matchId, color);
+        }
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals("--computer")) {
+                controller.setComputerPlayer(args[i + 1].equalsIgnoreCase("red") ? GameModel.RED : GameModel.BLUE);
+            }
+        }
+        if (analyze) {
+            controller.setAnalysis(true);
+        }
+        controller.startGame();                                     // Paint the first frame
     }
 }
@@ -0,0 +1,96 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// Latency of the interactive paths, kept in in-process histograms and, while a Flight Recorder
+// recording is running (e.g. -XX:StartFlightRecording), also emitted as chess.Operation events.
+// Usage: long start = System.nanoTime(); ...; Metrics.record(Metrics.PAINT, start);
+public final class Metrics {
+    public static final int HIGHLIGHT = 0;  // Mouse press until the movable tiles are shown
+    public static final int DROP = 1;       // Mouse release until the next frame is painted
+    public static final int PAINT = 2;      // One paint of the board
+    public static final int SAVE = 3;
+    public static final int LOAD = 4;
+    public static final int SEARCH = 5;     // One computer move
+
+    private static final LatencyHistogram[] HISTOGRAMS = {
+        new LatencyHistogram("highlight"),
+        new LatencyHistogram("drop-to-repaint"),
+        new LatencyHistogram("paint"),
+        new LatencyHistogram("save"),
+        new LatencyHistogram("load"),
+        new LatencyHistogram("search"),
+    };
+
+    private static final EventType EVENT_TYPE = EventType.getEventType(OperationEvent.class);
+
+    @Name("chess.Operation")
+    @Label("Game Operation")
+    @Category("Chess")
+    @Description("Latency of one interactive operation of the game")
+    static class OperationEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+    }
+
+    private Metrics() {
+    }
+
+    // Record the time since `startNanos` (a System.nanoTime value) for `operation`
+    public static void record(int operation, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        HISTOGRAMS[operation].record(nanos);
+        if (EVENT_TYPE.isEnabled()) {
+            OperationEvent event = new OperationEvent();
+            event.operation = HISTOGRAMS[operation].getName();
+            event.latency = nanos;
+            event.commit();
+        }
+    }
+
+    public static LatencyHistogram histogram(int operation) {
+        return HISTOGRAMS[operation];
+    }
+
+    // One line per operation: count, p50, p90, p99 and max in milliseconds
+    public static void report(Writer out) {
+        PrintWriter writer = new PrintWriter(out);
+        writer.println(String.format("%-16s %10s %10s %10s %10s %10s", "operation", "count", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            writer.println(String.format("%-16s %10d %10.3f %10.3f %10.3f %10.3f", histogram.getName(),
+                    histogram.getCount(), millis(histogram.getPercentile(50)), millis(histogram.getPercentile(90)),
+                    millis(histogram.getPercentile(99)), millis(histogram.getMax())));
+        }
+        writer.flush();
+    }
+
+    // Write the report to `file`
+    public static void dump(Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file)) {
+            report(out);
+        }
+    }
+
+    public static void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,54 @@
+// Moves packed into an int so generators can fill primitive buffers.
+// Bits 0-5 hold the from square, bits 6-11 the to square and bit 12 flags a capture.
+public final class Move {
+    public static final int NONE = 0; // from == to is never a legal move
+    public static final int CAPTURE = 1 << 12;
+
+    private Move() {
+    }
+
+    public static int encode(int from, int to) {
+        return from | (to << 6);
+    }
+
+    public static int encode(int from, int to, boolean capture) {
+        return capture ? encode(from, to) | CAPTURE : encode(from, to);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    // Column letter and 1-based row, e.g. "c7-c6"
+    public static String toString(int move) {
+        return squareName(from(move)) + "-" + squareName(to(move));
+    }
+
+    // Parse the toString form, e.g. "c7-c6". Returns NONE if `text` is not a move on the board.
+    public static int parse(String text) {
+        if (text.length() != 5 || text.charAt(2) != '-') {
+            return NONE;
+        }
+        int from = parseSquare(text.charAt(0), text.charAt(1));
+        int to = parseSquare(text.charAt(3), text.charAt(4));
+        return from < 0 || to < 0 || from == to ? NONE : encode(from, to);
+    }
+
+    private static int parseSquare(char file, char rank) {
+        int col = file - 'a';
+        int row = rank - '1';
+        return Position.onBoard(col, row) ? Position.square(col, row) : -1;
+    }
+
+    public static String squareName(int square) {
+        return (char) ('a' + Position.col(square)) + Integer.toString(Position.row(square) + 1);
+    }
+}
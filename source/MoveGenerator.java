@@ -0,0 +1,78 @@
+// Generates every legal move into a caller-supplied int buffer, with no allocation.
+// There is no check rule in this game, so every pseudo-legal move is legal.
+public final class MoveGenerator {
+    public static final int MAX_MOVES = 128; // Safe upper bound for one position
+
+    private MoveGenerator() {
+    }
+
+    // All moves for the side to move. Returns the number written, 0 once a Sau has been captured.
+    public static int generate(Position position, int[] moves) {
+        if (!position.hasSau(Position.RED) || !position.hasSau(Position.BLUE)) {
+            return 0;
+        }
+        int color = position.getSideToMove();
+        long own = position.occupied(color);
+        long enemy = position.occupied(1 - color);
+        long occupied = own | enemy;
+        int count = 0;
+        for (int type = 0; type < Position.TYPES; type++) {
+            long pieces = position.pieces(color, type);
+            while (pieces != 0) {
+                int from = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                long targets = Attacks.of(type, from, occupied, position.isRamForward(from)) & ~own;
+                count = emit(from, targets, enemy, moves, count);
+            }
+        }
+        return count;
+    }
+
+    // Moves for the piece on one square, whichever color it is. Returns the number written.
+    public static int generate(Position position, int square, int[] moves) {
+        int color = position.colorAt(square);
+        if (color == Position.NONE) {
+            return 0;
+        }
+        long own = position.occupied(color);
+        long enemy = position.occupied(1 - color);
+        long targets = Attacks.of(position.typeAt(square), square, own | enemy, position.isRamForward(square)) & ~own;
+        return emit(square, targets, enemy, moves, 0);
+    }
+
+    // `move` with its capture flag if it is legal in `position`, otherwise Move.NONE.
+    // `buffer` needs MAX_MOVES entries.
+    public static int legalMove(Position position, int move, int[] buffer) {
+        int count = generate(position, buffer);
+        for (int i = 0; i < count; i++) {
+            if ((buffer[i] & ~Move.CAPTURE) == move) {
+                return buffer[i];
+            }
+        }
+        return Move.NONE;
+    }
+
+    // Squares attacked by `color`, including those held by its own pieces
+    public static long attacks(Position position, int color) {
+        long occupied = position.occupied();
+        long attacked = 0;
+        for (int type = 0; type < Position.TYPES; type++) {
+            long pieces = position.pieces(color, type);
+            while (pieces != 0) {
+                int square = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                attacked |= Attacks.of(type, square, occupied, position.isRamForward(square));
+            }
+        }
+        return attacked;
+    }
+
+    private static int emit(int from, long targets, long enemy, int[] moves, int count) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves[count++] = Move.encode(from, to, (enemy & Position.bit(to)) != 0);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,265 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Append-only record of every move played. After an 8-byte header ("CGMJ", format version),
+// the file is a sequence of 2-byte entries: a move (Move encoding without the capture flag),
+// or GAME_START followed by the PositionCodec record the game starts from.
+// Moves reach the OS with every append; fsync runs once per `syncEvery` moves.
+// Usage: java MoveJournal <journal> [game] [ply]
+public class MoveJournal implements Closeable {
+    private static final int MAGIC = 0x43474D4A; // "CGMJ"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final short GAME_START = (short) 0xFFFF;
+    private static final int MOVE_MASK = 0xFFF;
+
+    private final FileChannel channel;
+    private final int syncEvery;                // 1 syncs every move, 0 leaves it to the OS
+    private final ByteBuffer entry = ByteBuffer.allocate(2 + PositionCodec.RECORD_SIZE);
+    private int unsynced = 0;
+    private Replay replay = null;               // Last replay(), reused until the journal grows
+
+    // Open for appending. A record torn by a crash is cut off, so new entries follow the last complete one.
+    public MoveJournal(Path path, int syncEvery) throws IOException {
+        this.syncEvery = syncEvery;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putShort((short) VERSION).putShort((short) 0).flip();
+            write(header);
+            channel.force(false);
+        } else {
+            channel.truncate(validLength(channel));
+        }
+        channel.position(channel.size());
+    }
+
+    // Begin a new game from `start`
+    public synchronized void startGame(Position start) throws IOException {
+        entry.clear();
+        entry.putShort(GAME_START);
+        PositionCodec.encode(start, entry);
+        entry.flip();
+        write(entry);
+        sync();
+    }
+
+    public synchronized void append(int move) throws IOException {
+        entry.clear();
+        entry.putShort((short) (move & MOVE_MASK)).flip();
+        write(entry);
+        if (syncEvery > 0 && ++unsynced >= syncEvery) {
+            sync();
+        }
+    }
+
+    // Write a whole game at once, so games appended from several threads never interleave
+    public synchronized void appendGame(Position start, int[] moves, int count) throws IOException {
+        startGame(start);
+        for (int i = 0; i < count; i++) {
+            append(moves[i]);
+        }
+    }
+
+    // Force everything appended so far to the disk
+    public synchronized void sync() throws IOException {
+        channel.force(false);
+        unsynced = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        sync();
+        channel.close();
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // The games written so far, including unsynced moves
+    public synchronized Replay replay() throws IOException {
+        if (replay == null || replay.data.capacity() != channel.size()) {
+            replay = new Replay(channel);
+        }
+        return replay;
+    }
+
+    // Length up to the end of the last complete entry. The file is read rather than mapped, so
+    // no mapping is alive when the constructor truncates it, which Windows would refuse.
+    private static long validLength(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        readFully(channel, buffer, 0, HEADER_SIZE);
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a move journal");
+        }
+        if (buffer.getShort(4) != VERSION) {
+            throw new IOException("Unsupported journal version " + buffer.getShort(4));
+        }
+
+        long offset = HEADER_SIZE;
+        boolean inGame = false;
+        while (true) {
+            readFully(channel, buffer, offset, buffer.capacity());
+            int limit = buffer.limit();
+            int pos = 0;
+            while (pos + 2 <= limit) {
+                if (buffer.getShort(pos) == GAME_START) {
+                    if (pos + 2 + PositionCodec.RECORD_SIZE > limit) {
+                        break; // Torn start record, or one that continues in the next chunk
+                    }
+                    inGame = true;
+                    pos += 2 + PositionCodec.RECORD_SIZE;
+                } else if (!inGame) {
+                    throw new IOException("Move before the first game at offset " + (offset + pos));
+                } else {
+                    pos += 2;
+                }
+            }
+            offset += pos;
+            if (limit < buffer.capacity()) {
+                return offset; // Reached the end of the file
+            }
+        }
+    }
+
+    // Read up to `length` bytes from `position` into `buffer`, stopping early only at the end of the file
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position, int length) throws IOException {
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) > 0) {
+            // Keep reading
+        }
+        buffer.flip();
+    }
+
+    public static Replay read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new Replay(channel);
+        }
+    }
+
+    // Memory-mapped index of the games in a journal. Any game can be rebuilt up to any ply.
+    public static class Replay {
+        private final MappedByteBuffer data;
+        private int[] gameOffsets = new int[16];    // Offset of each game's start record
+        private int[] gameEnds = new int[16];       // Offset just past each game's last move
+        private int games = 0;
+
+        Replay(FileChannel channel) throws IOException {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Journal too large: " + size + " bytes");
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size < HEADER_SIZE || data.getInt(0) != MAGIC) {
+                throw new IOException("Not a move journal");
+            }
+            if (data.getShort(4) != VERSION) {
+                throw new IOException("Unsupported journal version " + data.getShort(4));
+            }
+
+            int offset = HEADER_SIZE;
+            while (offset + 2 <= size) {
+                if (data.getShort(offset) == GAME_START) {
+                    if (offset + 2 + PositionCodec.RECORD_SIZE > size) {
+                        break; // Torn start record
+                    }
+                    if (games == gameOffsets.length) {
+                        gameOffsets = Arrays.copyOf(gameOffsets, games * 2);
+                        gameEnds = Arrays.copyOf(gameEnds, games * 2);
+                    }
+                    offset += 2;
+                    gameOffsets[games] = offset;
+                    offset += PositionCodec.RECORD_SIZE;
+                    gameEnds[games++] = offset;
+                } else if (games == 0) {
+                    throw new IOException("Move before the first game at offset " + offset);
+                } else {
+                    offset += 2;
+                    gameEnds[games - 1] = offset;
+                }
+            }
+        }
+
+        public int games() {
+            return games;
+        }
+
+        // Number of moves recorded for `game`
+        public int plies(int game) {
+            checkGame(game);
+            return (gameEnds[game] - gameOffsets[game] - PositionCodec.RECORD_SIZE) / 2;
+        }
+
+        // Rebuild `game` after its first `ply` moves into `into`. Throws IllegalStateException if a
+        // recorded move is not legal in the position it is played from.
+        public void position(int game, int ply, Position into) {
+            checkGame(game);
+            if (ply < 0 || ply > plies(game)) {
+                throw new IndexOutOfBoundsException("Ply " + ply + " of " + plies(game));
+            }
+            PositionCodec.decode(data, gameOffsets[game], into);
+            int offset = gameOffsets[game] + PositionCodec.RECORD_SIZE;
+            int[] buffer = new int[MoveGenerator.MAX_MOVES];
+            for (int i = 0; i < ply; i++, offset += 2) {
+                int move = data.getShort(offset) & MOVE_MASK;
+                int legal = MoveGenerator.legalMove(into, move, buffer);
+                if (legal == Move.NONE) {
+                    throw new IllegalStateException("Illegal move " + Move.toString(move) + " at ply " + i + " of game " + game);
+                }
+                into.makeMove(legal);
+            }
+        }
+
+        // The recorded move at `ply` of `game`
+        public int move(int game, int ply) {
+            checkGame(game);
+            if (ply < 0 || ply >= plies(game)) {
+                throw new IndexOutOfBoundsException("Ply " + ply + " of " + plies(game));
+            }
+            return data.getShort(gameOffsets[game] + PositionCodec.RECORD_SIZE + ply * 2) & MOVE_MASK;
+        }
+
+        private void checkGame(int game) {
+            if (game < 0 || game >= games) {
+                throw new IndexOutOfBoundsException("Game " + game + " of " + games);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java MoveJournal <journal> [game] [ply]");
+            return;
+        }
+        Replay replay = read(Paths.get(args[0]));
+        if (args.length < 2) {
+            for (int game = 0; game < replay.games(); game++) {
+                System.out.println("Game " + game + ": " + replay.plies(game) + " moves");
+            }
+            return;
+        }
+        int game = Integer.parseInt(args[1]);
+        int ply = args.length > 2 ? Integer.parseInt(args[2]) : replay.plies(game);
+        StringBuilder moves = new StringBuilder();
+        for (int i = 0; i < ply; i++) {
+            moves.append(i == 0 ? "" : " ").append(Move.toString(replay.move(game, i)));
+        }
+        System.out.println(moves);
+        Position position = new Position();
+        replay.position(game, ply, position);
+        PrintWriter console = new PrintWriter(System.out);
+        position.write(console);
+        console.flush();
+    }
+}
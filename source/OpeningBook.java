@@ -0,0 +1,242 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Book moves keyed by Zobrist hash, memory-mapped from a file sorted by (hash, move).
+// After a 16-byte header ("CGOB", format version, entry count) each entry holds
+// hash (8 bytes), move (2), unused (2), games played (4), wins (4) and draws (4) of the side that played it.
+// Lookups are binary searches over the mapping and allocate nothing.
+// Usage: java OpeningBook <book> build <journal>... [--plies N] [--min-games K]
+//        java OpeningBook <book> probe [save.txt]
+public class OpeningBook {
+    private static final int MAGIC = 0x43474F42; // "CGOB"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int ENTRY_SIZE = 24;
+
+    private final MappedByteBuffer data;
+    private final int size;
+
+    public OpeningBook(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Opening book too large: " + channel.size() + " bytes");
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new IOException("Not an opening book: " + path);
+        }
+        if (data.getShort(4) != VERSION) {
+            throw new IOException("Unsupported opening book version " + data.getShort(4));
+        }
+        size = data.getInt(8);
+        if ((long) HEADER_SIZE + (long) size * ENTRY_SIZE > data.capacity()) {
+            throw new IOException("Truncated opening book: " + path);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Index of the first entry for `key`, or -1 if the position is not in the book
+    public int find(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (key(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < size && key(low) == key ? low : -1;
+    }
+
+    // Number of book moves for the position whose first entry is `first`
+    public int count(int first) {
+        long key = key(first);
+        int last = first;
+        while (last < size && key(last) == key) {
+            last++;
+        }
+        return last - first;
+    }
+
+    // Most played move for `key`, ties broken by score, or Move.NONE
+    public int bestMove(long key) {
+        int first = find(key);
+        if (first < 0) {
+            return Move.NONE;
+        }
+        int best = first;
+        for (int i = first + 1, end = first + count(first); i < end; i++) {
+            if (played(i) > played(best) || (played(i) == played(best) && score(i) > score(best))) {
+                best = i;
+            }
+        }
+        return move(best);
+    }
+
+    // Move for `key` picked at random in proportion to how often it was played, or Move.NONE.
+    // `random` is any uniformly distributed non-negative long.
+    public int pickMove(long key, long random) {
+        int first = find(key);
+        if (first < 0) {
+            return Move.NONE;
+        }
+        int end = first + count(first);
+        long total = 0;
+        for (int i = first; i < end; i++) {
+            total += played(i);
+        }
+        long pick = random % total;
+        for (int i = first; i < end; i++) {
+            pick -= played(i);
+            if (pick < 0) {
+                return move(i);
+            }
+        }
+        return move(end - 1);
+    }
+
+    public long key(int index) {
+        return data.getLong(HEADER_SIZE + index * ENTRY_SIZE);
+    }
+
+    public int move(int index) {
+        return data.getShort(HEADER_SIZE + index * ENTRY_SIZE + 8) & 0xFFF;
+    }
+
+    public int played(int index) {
+        return data.getInt(HEADER_SIZE + index * ENTRY_SIZE + 12);
+    }
+
+    public int wins(int index) {
+        return data.getInt(HEADER_SIZE + index * ENTRY_SIZE + 16);
+    }
+
+    public int draws(int index) {
+        return data.getInt(HEADER_SIZE + index * ENTRY_SIZE + 20);
+    }
+
+    // Points per game for the side that played the move: a win counts 1, a draw 1/2
+    public double score(int index) {
+        return (wins(index) + draws(index) / 2.0) / played(index);
+    }
+
+    // Build a book from the games in `journals`, keeping the first `plies` moves of every game
+    // and dropping moves played fewer than `minGames` times. Returns the number of entries.
+    public static int build(Path book, List<Path> journals, int plies, int minGames) throws IOException {
+        Map<Long, Map<Integer, int[]>> stats = new HashMap<>(); // hash -> move -> {played, wins, draws}
+        Position position = new Position();
+        Position end = new Position();
+        for (Path journal : journals) {
+            MoveJournal.Replay replay = MoveJournal.read(journal);
+            for (int game = 0; game < replay.games(); game++) {
+                int length = replay.plies(game);
+                replay.position(game, length, end);
+                int winner = !end.hasSau(Position.RED) ? Position.BLUE
+                        : !end.hasSau(Position.BLUE) ? Position.RED : Position.NONE;
+
+                replay.position(game, 0, position);
+                for (int ply = 0; ply < Math.min(plies, length); ply++) {
+                    int move = replay.move(game, ply);
+                    int[] entry = stats.computeIfAbsent(position.getHash(), k -> new HashMap<>())
+                            .computeIfAbsent(move, k -> new int[3]);
+                    entry[0]++;
+                    if (winner == position.getSideToMove()) {
+                        entry[1]++;
+                    } else if (winner == Position.NONE) {
+                        entry[2]++;
+                    }
+                    position.makeMove(move);
+                }
+            }
+        }
+
+        List<long[]> entries = new ArrayList<>(); // {hash, move, played, wins, draws}
+        for (Map.Entry<Long, Map<Integer, int[]>> byHash : stats.entrySet()) {
+            for (Map.Entry<Integer, int[]> byMove : byHash.getValue().entrySet()) {
+                int[] entry = byMove.getValue();
+                if (entry[0] >= minGames) {
+                    entries.add(new long[] {byHash.getKey(), byMove.getKey(), entry[0], entry[1], entry[2]});
+                }
+            }
+        }
+        entries.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + entries.size() * ENTRY_SIZE);
+        buffer.putInt(MAGIC).putShort((short) VERSION).putShort((short) 0).putInt(entries.size()).putInt(0);
+        for (long[] entry : entries) {
+            buffer.putLong(entry[0]).putShort((short) entry[1]).putShort((short) 0)
+                    .putInt((int) entry[2]).putInt((int) entry[3]).putInt((int) entry[4]);
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(book, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        return entries.size();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java OpeningBook <book> build <journal>... [--plies N] [--min-games K]");
+            System.out.println("       java OpeningBook <book> probe [save.txt]");
+            return;
+        }
+        Path book = Paths.get(args[0]);
+        if (args[1].equals("build")) {
+            List<Path> journals = new ArrayList<>();
+            int plies = 16;
+            int minGames = 2;
+            for (int i = 2; i < args.length; i++) {
+                if (args[i].equals("--plies")) {
+                    plies = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--min-games")) {
+                    minGames = Integer.parseInt(args[++i]);
+                } else {
+                    journals.add(Paths.get(args[i]));
+                }
+            }
+            int entries = build(book, journals, plies, minGames);
+            System.out.println("Wrote " + entries + " book moves to " + book);
+        } else if (args[1].equals("probe")) {
+            Position position = new Position();
+            if (args.length > 2) {
+                try (BufferedReader reader = Files.newBufferedReader(Paths.get(args[2]))) {
+                    position.read(reader);
+                }
+            } else {
+                position.setInitial();
+            }
+            OpeningBook opening = new OpeningBook(book);
+            int first = opening.find(position.getHash());
+            if (first < 0) {
+                System.out.println("Position not in book (" + opening.size() + " entries)");
+                return;
+            }
+            for (int index = first, end = first + opening.count(first); index < end; index++) {
+                System.out.println(Move.toString(opening.move(index)) + ": " + opening.played(index) + " games, "
+                        + String.format("%.1f%%", opening.score(index) * 100));
+            }
+        } else {
+            System.out.println("Unknown command: " + args[1]);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Lazy SMP: every thread searches the same root with its own Search, sharing one transposition
+// table. Helpers start at staggered depths, so their results fill the table ahead of the main
+// thread, and the main thread's result is the one that is played.
+// Usage for a scaling report: java ParallelSearch [threads] [depth]
+public class ParallelSearch {
+    private final TranspositionTable table;
+    private final Search.Control control = new Search.Control();     // Shared by every thread's Search
+    private final Search[] searches;            // searches[0] belongs to the calling thread
+    private final ExecutorService helpers;
+
+    public ParallelSearch(TranspositionTable table, int threads) {
+        this.table = table;
+        searches = new Search[Math.max(1, threads)];
+        for (int i = 0; i < searches.length; i++) {
+            searches[i] = new Search(table, control);
+        }
+        helpers = searches.length > 1 ? Executors.newFixedThreadPool(searches.length - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    public int getThreads() {
+        return searches.length;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    public void setListener(Search.Listener listener) {
+        searches[0].setListener(listener);
+    }
+
+    public void setTablebase(Tablebase tablebase) {
+        for (Search search : searches) {
+            search.setTablebase(tablebase);
+        }
+    }
+
+    // Stop the running search and any already requested. Safe to call from any thread.
+    public void stop() {
+        control.stop();
+    }
+
+    // Take the token for a search before handing it to another thread, so a stop() in between still ends it
+    public long newToken() {
+        return control.newToken();
+    }
+
+    public void shutdown() {
+        stop();
+        if (helpers != null) {
+            helpers.shutdownNow();
+        }
+    }
+
+    // Search on the calling thread plus the helpers. The result's node count covers every thread.
+    public Search.Result search(Position root, long timeMillis, int maxDepth) {
+        return search(root, timeMillis, maxDepth, newToken());
+    }
+
+    // Search under a token from newToken(); ends at once if stop() was called since it was taken
+    public Search.Result search(Position root, long timeMillis, int maxDepth, long token) {
+        table.newSearch();
+        List<Future<Search.Result>> running = new ArrayList<>();
+        for (int i = 1; i < searches.length; i++) {
+            Search helper = searches[i];
+            int startDepth = 1 + (i & 1);
+            running.add(helpers.submit(() -> helper.search(root, timeMillis, maxDepth + 1, startDepth, token)));
+        }
+
+        Search.Result main = searches[0].search(root, timeMillis, maxDepth, 1, token);
+
+        // Stop the helpers; searches requested after this one hold later tokens and are unaffected
+        control.stop(token);
+        long nodes = main.getNodes();
+        for (Future<Search.Result> future : running) {
+            try {
+                nodes += future.get().getNodes();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search helper failed", e.getCause());
+            }
+        }
+        return new Search.Result(main.getMove(), main.getScore(), main.getDepth(), nodes, main.getElapsedMillis());
+    }
+
+    public static void main(String[] args) {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 12;
+
+        // The opening plus a few middlegames reached by fixed random moves
+        Position[] positions = new Position[4];
+        Random random = new Random(42);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int i = 0; i < positions.length; i++) {
+            Position position = new Position();
+            position.setInitial();
+            for (int ply = 0; ply < i * 6; ply++) {
+                int count = MoveGenerator.generate(position, moves);
+                if (count == 0) {
+                    break;
+                }
+                position.makeMove(moves[random.nextInt(count)]);
+            }
+            positions[i] = position;
+        }
+
+        // Warm up the JIT so the single-thread baseline is not penalised
+        run(1, positions, Math.max(1, depth - 3));
+
+        long[] baseline = run(1, positions, depth);
+        long[] parallel = threads > 1 ? run(threads, positions, depth) : baseline;
+        report(1, baseline, baseline);
+        if (threads > 1) {
+            report(threads, parallel, baseline);
+        }
+    }
+
+    // Time to reach `depth` on every position with a fresh table. Returns {milliseconds, nodes}.
+    private static long[] run(int threads, Position[] positions, int depth) {
+        long millis = 0;
+        long nodes = 0;
+        for (Position position : positions) {
+            ParallelSearch search = new ParallelSearch(new TranspositionTable(64), threads);
+            long start = System.nanoTime();
+            Search.Result result = search.search(position, Long.MAX_VALUE / 4, depth);
+            millis += (System.nanoTime() - start) / 1000000;
+            nodes += result.getNodes();
+            search.shutdown();
+        }
+        return new long[] {Math.max(millis, 1), nodes};
+    }
+
+    private static void report(int threads, long[] run, long[] baseline) {
+        System.out.println("Threads: " + threads
+                + "  time: " + run[0] + " ms"
+                + "  nodes: " + run[1]
+                + "  nodes/second: " + run[1] * 1000 / run[0]
+                + "  speedup: " + String.format("%.2f", (double) baseline[0] / run[0])
+                + "  nps scaling: " + String.format("%.2f", ((double) run[1] / run[0]) / ((double) baseline[1] / baseline[0])));
+    }
+}
@@ -0,0 +1,97 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+// Headless move-generation check: counts leaf nodes to a fixed depth and reports nodes per second.
+// Usage: java Perft [depth] [--divide] [save.txt]
+public class Perft {
+    private final Position position = new Position();
+    private final int[][] moves;        // One move buffer per ply, so the search never allocates
+
+    public Perft(int maxDepth) {
+        moves = new int[maxDepth + 1][MoveGenerator.MAX_MOVES];
+    }
+
+    // Number of leaf nodes reachable from `root` in exactly `depth` moves
+    public long perft(Position root, int depth) {
+        position.copyFrom(root);
+        return search(0, depth);
+    }
+
+    // Leaf counts per root move, in generator order. Returns the number of root moves.
+    public int divide(Position root, int depth, int[] rootMoves, long[] counts) {
+        position.copyFrom(root);
+        int count = MoveGenerator.generate(position, rootMoves);
+        for (int i = 0; i < count; i++) {
+            position.makeMove(rootMoves[i]);
+            counts[i] = search(1, depth - 1);
+            position.unmakeMove();
+        }
+        return count;
+    }
+
+    private long search(int ply, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        int[] buffer = moves[ply];
+        int count = MoveGenerator.generate(position, buffer);
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            position.makeMove(buffer[i]);
+            nodes += search(ply + 1, depth - 1);
+            position.unmakeMove();
+        }
+        return nodes;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int depth = 4;
+        boolean divide = false;
+        String filename = null;
+        for (String arg : args) {
+            if (arg.equals("--divide")) {
+                divide = true;
+            } else if (arg.matches("\\d+")) {
+                depth = Integer.parseInt(arg);
+            } else {
+                filename = arg;
+            }
+        }
+
+        Position root = new Position();
+        if (filename == null) {
+            root.setInitial();
+        } else {
+            try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+                root.read(reader);
+            }
+        }
+
+        Perft perft = new Perft(Math.max(depth, 1));
+        long start = System.nanoTime();
+        long nodes;
+        if (divide && depth > 0) {
+            int[] rootMoves = new int[MoveGenerator.MAX_MOVES];
+            long[] counts = new long[MoveGenerator.MAX_MOVES];
+            int count = perft.divide(root, depth, rootMoves, counts);
+            nodes = 0;
+            for (int i = 0; i < count; i++) {
+                System.out.println(Move.toString(rootMoves[i]) + ": " + counts[i]);
+                nodes += counts[i];
+            }
+            System.out.println("Moves: " + count);
+        } else {
+            nodes = perft.perft(root, depth);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println("Depth: " + depth);
+        System.out.println("Nodes: " + nodes);
+        System.out.println("Time: " + (elapsed / 1000000) + " ms");
+        System.out.println("Nodes/second: " + (elapsed > 0 ? nodes * 1000000000L / elapsed : 0));
+    }
+}
@@ -1,50 +1,47 @@
-import java.awt.*;
-
 //Base class for Pieces
+// One shared immutable instance per kind and color, see of(). Where a piece stands, which way a
+// Ram is heading and when Tors and Xors swap is all kept in the Position, so the rules never
+// create pieces and never touch java.awt; the view maps color and type to its sprites.
 public abstract class Piece {
-    private int col;
-    private int row;
-    private final Image image;
-    public int color;
+    private static final Piece[] PIECES = {
+            new Ram(Position.RED), new Biz(Position.RED), new Sau(Position.RED), new Tor(Position.RED), new Xor(Position.RED),
+            new Ram(Position.BLUE), new Biz(Position.BLUE), new Sau(Position.BLUE), new Tor(Position.BLUE), new Xor(Position.BLUE)
+    };
+
+    private final int color;
 
-    public Piece(int color, int col, int row, Image image) {
+    protected Piece(int color) {
         this.color = color;
-        this.col = col;
-        this.row = row;
-        this.image = image;
     }
 
-    public int getCol() {
-        return col;
-    }
-    
-    public void setCol(int col) {
-        this.col = col;
+    // The piece of the given color and Position type constant
+    public static Piece of(int color, int type) {
+        return PIECES[color * Position.TYPES + type];
     }
 
-    public int getRow() {
-        return row;
+    // The piece on `square`, or null if it is empty
+    public static Piece at(Position position, int square) {
+        int color = position.colorAt(square);
+        return color == Position.NONE ? null : of(color, position.typeAt(square));
     }
 
-    public void setRow(int row) {
-        this.row = row;
+    public int getColor() {
+        return color;
     }
 
-    public Image getImage() {
-        return image;
-    }
+    // Bitboard piece type, one of the Position type constants
+    public abstract int getType();
 
-    public void setPosition(int col, int row) {
-        this.col = col;
-        this.row = row;
-    }
+    // Squares this piece attacks from `square` in `position`
+    public abstract long attacks(Position position, int square);
 
-    public int getColor() {
-        return color;
+    // Whether this piece may move from `from` to `to`: a square it attacks that holds no piece of its own color
+    public boolean isMoveValid(Position position, int from, int to) {
+        return (attacks(position, from) & Position.bit(to) & ~position.occupied(color)) != 0;
     }
 
-    //move method for polymorphism
-    public abstract boolean isMoveValid(int fromRow, int fromCol, int toRow, int toCol, Piece[][] board);
-
-    public abstract void move(int fromRow, int fromCol, int toRow, int toCol, Piece[][] board);
+    @Override
+    public String toString() {
+        return (color == Position.RED ? "R" : "B") + Position.typeName(getType());
+    }
 }
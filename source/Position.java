@@ -0,0 +1,535 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+// Bitboard representation of the 5x8 board.
+// Squares are numbered row * COLS + col, so every piece set fits in the low 40 bits of a long.
+public class Position {
+    public static final int COLS = 5;
+    public static final int ROWS = 8;
+    public static final int SQUARES = COLS * ROWS;
+    public static final long ALL_SQUARES = (1L << SQUARES) - 1;
+
+    public static final int RED = 0;
+    public static final int BLUE = 1;
+
+    // Piece types
+    public static final int RAM = 0;
+    public static final int BIZ = 1;
+    public static final int SAU = 2;
+    public static final int TOR = 3;
+    public static final int XOR = 4;
+    public static final int TYPES = 5;
+    public static final int NONE = -1;
+
+    private static final String[] TYPE_NAMES = {"Ram", "Biz", "Sau", "Tor", "Xor"};
+
+    private final long[] pieces = new long[2 * TYPES]; // Indexed by color * TYPES + type
+    private final long[] occupied = new long[2];        // Indexed by color
+    private long ramForward;                            // Rams currently moving towards higher rows
+    private int sideToMove = BLUE;
+    private int turnCounter = 0;                        // Full turns since the last Tor/Xor swap
+    private long hash = Zobrist.BLUE_TO_MOVE;           // Zobrist key, updated incrementally
+    private int score = 0;                              // Evaluation.pieceSquare sum, updated incrementally
+
+    // Undo records for makeMove, one packed int per ply:
+    // bits 0-11 move squares, 12-14 captured type + 1, 15-17 moved type,
+    // 18 mover was a forward Ram, 19 captured a forward Ram, 20-21 previous turnCounter, 22 swap happened
+    private int[] undoStack;
+    private long[] hashStack;                           // Hash before each recorded move
+    private int[] scoreStack;                           // Score before each recorded move
+    private int undoSize = 0;
+
+    public Position() {
+        this(1024);
+    }
+
+    // `history` is the initial undo capacity; it grows as needed
+    public Position(int history) {
+        undoStack = new int[Math.max(1, history)];
+        hashStack = new long[Math.max(1, history)];
+        scoreStack = new int[Math.max(1, history)];
+    }
+
+    public static int square(int col, int row) {
+        return row * COLS + col;
+    }
+
+    public static int col(int square) {
+        return square % COLS;
+    }
+
+    public static int row(int square) {
+        return square / COLS;
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    // Class name used for a type in save.txt
+    public static String typeName(int type) {
+        return TYPE_NAMES[type];
+    }
+
+    public static int typeOf(String name) {
+        for (int type = 0; type < TYPES; type++) {
+            if (TYPE_NAMES[type].equals(name)) {
+                return type;
+            }
+        }
+        return NONE;
+    }
+
+    public static boolean onBoard(int col, int row) {
+        return col >= 0 && col < COLS && row >= 0 && row < ROWS;
+    }
+
+    public void clear() {
+        for (int i = 0; i < pieces.length; i++) {
+            pieces[i] = 0;
+        }
+        occupied[RED] = 0;
+        occupied[BLUE] = 0;
+        ramForward = 0;
+        sideToMove = BLUE;
+        turnCounter = 0;
+        hash = Zobrist.BLUE_TO_MOVE;
+        score = 0;
+        undoSize = 0;
+    }
+
+    // Starting layout of the game
+    public void setInitial() {
+        clear();
+        put(RED, TOR, square(0, 0));
+        put(RED, BIZ, square(1, 0));
+        put(RED, SAU, square(2, 0));
+        put(RED, BIZ, square(3, 0));
+        put(RED, XOR, square(4, 0));
+        put(BLUE, TOR, square(0, 7));
+        put(BLUE, BIZ, square(1, 7));
+        put(BLUE, SAU, square(2, 7));
+        put(BLUE, BIZ, square(3, 7));
+        put(BLUE, XOR, square(4, 7));
+        for (int col = 0; col < COLS; col++) {
+            put(RED, RAM, square(col, 1));
+            put(BLUE, RAM, square(col, 6));
+        }
+    }
+
+    public void copyFrom(Position other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+        occupied[RED] = other.occupied[RED];
+        occupied[BLUE] = other.occupied[BLUE];
+        ramForward = other.ramForward;
+        sideToMove = other.sideToMove;
+        turnCounter = other.turnCounter;
+        hash = other.hash;
+        score = other.score;
+        undoSize = 0; // The copy starts without history
+    }
+
+    // Place a piece on an empty square. Rams start in their color's default direction.
+    public void put(int color, int type, int square) {
+        long b = bit(square);
+        pieces[color * TYPES + type] |= b;
+        occupied[color] |= b;
+        hash ^= Zobrist.PIECE[color * TYPES + type][square];
+        if (type == RAM && color == RED) {
+            ramForward |= b; // Red moves down, Blue moves up
+            hash ^= Zobrist.RAM_FORWARD[square];
+        }
+        score += Evaluation.pieceSquare(color, type, square, color == RED);
+    }
+
+    public void remove(int square) {
+        int color = colorAt(square);
+        if (color == NONE) {
+            return;
+        }
+        long b = bit(square);
+        int type = typeOf(color, b);
+        score -= Evaluation.pieceSquare(color, type, square, (ramForward & b) != 0);
+        pieces[color * TYPES + type] &= ~b;
+        occupied[color] &= ~b;
+        hash ^= Zobrist.PIECE[color * TYPES + type][square];
+        if ((ramForward & b) != 0) {
+            ramForward &= ~b;
+            hash ^= Zobrist.RAM_FORWARD[square];
+        }
+    }
+
+    // Move whatever stands on `from` to `to`, capturing any piece there.
+    // A Ram reaching the first or last row reverses direction. Returns the captured type or NONE.
+    public int move(int from, int to) {
+        int color = colorAt(from);
+        int type = typeAt(from);
+        int captured = typeAt(to);
+        boolean forward = isRamForward(from);
+        if (captured != NONE) {
+            remove(to);
+        }
+        remove(from);
+        long b = bit(to);
+        pieces[color * TYPES + type] |= b;
+        occupied[color] |= b;
+        hash ^= Zobrist.PIECE[color * TYPES + type][to];
+        if (type == RAM) {
+            int row = row(to);
+            if (row == 0 || row == ROWS - 1) {
+                forward = !forward;
+            }
+            if (forward) {
+                ramForward |= b;
+                hash ^= Zobrist.RAM_FORWARD[to];
+            }
+        }
+        score += Evaluation.pieceSquare(color, type, to, forward);
+        return captured;
+    }
+
+    // Apply a move with the game's turn rules and record how to take it back: the side to move
+    // changes, and every second time play returns to Red the Tors and Xors swap.
+    // Returns the captured type or NONE.
+    public int makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int color = sideToMove;
+        int enemy = 1 - color;
+        long fromBit = bit(from);
+        long toBit = bit(to);
+        int type = typeOf(color, fromBit);
+        int captured = (occupied[enemy] & toBit) != 0 ? typeOf(enemy, toBit) : NONE;
+
+        int record = (move & 0xFFF) | ((captured + 1) << 12) | (type << 15) | (turnCounter << 20);
+        if ((ramForward & fromBit) != 0) {
+            record |= 1 << 18;
+        }
+        if ((ramForward & toBit) != 0) {
+            record |= 1 << 19;
+        }
+
+        if (undoSize == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoStack.length * 2);
+            hashStack = Arrays.copyOf(hashStack, hashStack.length * 2);
+            scoreStack = Arrays.copyOf(scoreStack, scoreStack.length * 2);
+        }
+        hashStack[undoSize] = hash;
+        scoreStack[undoSize] = score;
+
+        long h = hash;
+        boolean forward = (ramForward & fromBit) != 0;
+        int sc = score - Evaluation.pieceSquare(color, type, from, forward);
+        if (captured != NONE) {
+            sc -= Evaluation.pieceSquare(enemy, captured, to, (ramForward & toBit) != 0);
+            pieces[enemy * TYPES + captured] &= ~toBit;
+            occupied[enemy] &= ~toBit;
+            h ^= Zobrist.PIECE[enemy * TYPES + captured][to];
+        }
+        pieces[color * TYPES + type] ^= fromBit | toBit;
+        occupied[color] ^= fromBit | toBit;
+        h ^= Zobrist.PIECE[color * TYPES + type][from] ^ Zobrist.PIECE[color * TYPES + type][to];
+        if (forward) {
+            h ^= Zobrist.RAM_FORWARD[from];
+        }
+        if ((ramForward & toBit) != 0) {
+            h ^= Zobrist.RAM_FORWARD[to];
+        }
+        ramForward &= ~(fromBit | toBit);
+        if (type == RAM) {
+            int row = row(to);
+            if (row == 0 || row == ROWS - 1) {
+                forward = !forward;
+            }
+            if (forward) {
+                ramForward |= toBit;
+                h ^= Zobrist.RAM_FORWARD[to];
+            }
+        }
+        score = sc + Evaluation.pieceSquare(color, type, to, forward);
+
+        sideToMove = enemy;
+        h ^= Zobrist.BLUE_TO_MOVE ^ Zobrist.turnCounter(turnCounter);
+        hash = h;
+        if (sideToMove == RED) {
+            turnCounter++;
+            if (turnCounter >= 2) {
+                swapTorAndXor();
+                turnCounter = 0;
+                record |= 1 << 22;
+            }
+        }
+        hash ^= Zobrist.turnCounter(turnCounter);
+
+        undoStack[undoSize++] = record;
+        return captured;
+    }
+
+    // Take back the last makeMove
+    public void unmakeMove() {
+        int record = undoStack[--undoSize];
+        long previousHash = hashStack[undoSize];
+        int previousScore = scoreStack[undoSize];
+        int from = record & 0x3F;
+        int to = (record >>> 6) & 0x3F;
+        int captured = ((record >>> 12) & 0x7) - 1;
+        int type = (record >>> 15) & 0x7;
+        long fromBit = bit(from);
+        long toBit = bit(to);
+
+        if ((record & (1 << 22)) != 0) {
+            swapTorAndXor();
+        }
+        turnCounter = (record >>> 20) & 0x3;
+        int color = 1 - sideToMove;
+        sideToMove = color;
+
+        pieces[color * TYPES + type] ^= fromBit | toBit;
+        occupied[color] ^= fromBit | toBit;
+        ramForward &= ~toBit;
+        if ((record & (1 << 18)) != 0) {
+            ramForward |= fromBit;
+        }
+        if (captured != NONE) {
+            int enemy = 1 - color;
+            pieces[enemy * TYPES + captured] |= toBit;
+            occupied[enemy] |= toBit;
+            if ((record & (1 << 19)) != 0) {
+                ramForward |= toBit;
+            }
+        }
+        hash = previousHash;
+        score = previousScore;
+    }
+
+    // Number of moves that unmakeMove can take back
+    public int getUndoSize() {
+        return undoSize;
+    }
+
+    // Forget the undo history, for positions that only ever move forward
+    public void clearHistory() {
+        undoSize = 0;
+    }
+
+    private int typeOf(int color, long b) {
+        int base = color * TYPES;
+        for (int type = 0; type < TYPES; type++) {
+            if ((pieces[base + type] & b) != 0) {
+                return type;
+            }
+        }
+        return NONE;
+    }
+
+    public void swapTorAndXor() {
+        for (int color = RED; color <= BLUE; color++) {
+            int base = color * TYPES;
+            long tors = pieces[base + TOR];
+            pieces[base + TOR] = pieces[base + XOR];
+            pieces[base + XOR] = tors;
+            long[] torKeys = Zobrist.PIECE[base + TOR];
+            long[] xorKeys = Zobrist.PIECE[base + XOR];
+            long swapped = tors | pieces[base + TOR];
+            while (swapped != 0) {
+                int sq = Long.numberOfTrailingZeros(swapped);
+                swapped &= swapped - 1;
+                hash ^= torKeys[sq] ^ xorKeys[sq];
+            }
+            // Old Tors are Xors now and the other way round
+            score += sumPieceSquare(color, XOR, tors) - sumPieceSquare(color, TOR, tors)
+                    + sumPieceSquare(color, TOR, pieces[base + TOR]) - sumPieceSquare(color, XOR, pieces[base + TOR]);
+        }
+    }
+
+    public int colorAt(int square) {
+        long b = bit(square);
+        if ((occupied[RED] & b) != 0) {
+            return RED;
+        }
+        if ((occupied[BLUE] & b) != 0) {
+            return BLUE;
+        }
+        return NONE;
+    }
+
+    public int typeAt(int square) {
+        long b = bit(square);
+        for (int i = 0; i < pieces.length; i++) {
+            if ((pieces[i] & b) != 0) {
+                return i % TYPES;
+            }
+        }
+        return NONE;
+    }
+
+    public long pieces(int color, int type) {
+        return pieces[color * TYPES + type];
+    }
+
+    public long occupied(int color) {
+        return occupied[color];
+    }
+
+    public long occupied() {
+        return occupied[RED] | occupied[BLUE];
+    }
+
+    public boolean isEmpty(int square) {
+        return (occupied() & bit(square)) == 0;
+    }
+
+    public boolean hasSau(int color) {
+        return pieces[color * TYPES + SAU] != 0;
+    }
+
+    public boolean isRamForward(int square) {
+        return (ramForward & bit(square)) != 0;
+    }
+
+    public void setRamForward(int square, boolean forward) {
+        if (forward != isRamForward(square)) {
+            int color = colorAt(square);
+            if (color != NONE && typeAt(square) == RAM) {
+                score += Evaluation.pieceSquare(color, RAM, square, forward)
+                        - Evaluation.pieceSquare(color, RAM, square, !forward);
+            }
+            ramForward ^= bit(square);
+            hash ^= Zobrist.RAM_FORWARD[square];
+        }
+    }
+
+    public long getRamForward() {
+        return ramForward;
+    }
+
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    public void setSideToMove(int sideToMove) {
+        if (sideToMove != this.sideToMove) {
+            hash ^= Zobrist.BLUE_TO_MOVE;
+        }
+        this.sideToMove = sideToMove;
+    }
+
+    public int getTurnCounter() {
+        return turnCounter;
+    }
+
+    // 0 or 1: the undo record keeps it in two bits, and it reaches 2 only for the swap that resets it
+    public void setTurnCounter(int turnCounter) {
+        if (turnCounter < 0 || turnCounter > 1) {
+            throw new IllegalArgumentException("Turn counter must be 0 or 1: " + turnCounter);
+        }
+        hash ^= Zobrist.turnCounter(this.turnCounter) ^ Zobrist.turnCounter(turnCounter);
+        this.turnCounter = turnCounter;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    // Material and piece-square values of every piece from Red's point of view, see Evaluation
+    public int getScore() {
+        return score;
+    }
+
+    // Score recomputed from scratch, for checking the incremental one
+    public int computeScore() {
+        int total = 0;
+        for (int i = 0; i < pieces.length; i++) {
+            long b = pieces[i];
+            while (b != 0) {
+                int sq = Long.numberOfTrailingZeros(b);
+                b &= b - 1;
+                total += Evaluation.pieceSquare(i / TYPES, i % TYPES, sq, isRamForward(sq));
+            }
+        }
+        return total;
+    }
+
+    private static int sumPieceSquare(int color, int type, long squares) {
+        int total = 0;
+        while (squares != 0) {
+            total += Evaluation.pieceSquare(color, type, Long.numberOfTrailingZeros(squares), false);
+            squares &= squares - 1;
+        }
+        return total;
+    }
+
+    // Hash recomputed from scratch, for checking the incremental one
+    public long computeHash() {
+        long h = sideToMove == BLUE ? Zobrist.BLUE_TO_MOVE : 0;
+        h ^= Zobrist.turnCounter(turnCounter);
+        for (int i = 0; i < pieces.length; i++) {
+            long b = pieces[i];
+            while (b != 0) {
+                h ^= Zobrist.PIECE[i][Long.numberOfTrailingZeros(b)];
+                b &= b - 1;
+            }
+        }
+        long rams = ramForward;
+        while (rams != 0) {
+            h ^= Zobrist.RAM_FORWARD[Long.numberOfTrailingZeros(rams)];
+            rams &= rams - 1;
+        }
+        return h;
+    }
+
+    // Read the save.txt format: a "turnCounter,currentTurn" line, then one "Type,color,col,row" line per piece
+    public void read(BufferedReader reader) throws IOException {
+        clear();
+        String line = reader.readLine();
+        if (line != null) {
+            String[] gameState = line.split(",");
+            int counter = Integer.parseInt(gameState[0]);
+            if (counter < 0 || counter > 1) {
+                throw new IOException("Invalid turn counter: " + counter);
+            }
+            int side = Integer.parseInt(gameState[1]);
+            if (side != RED && side != BLUE) {
+                throw new IOException("Invalid side to move: " + side);
+            }
+            setTurnCounter(counter);
+            setSideToMove(side);
+        }
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] parts = line.split(",");
+            int type = typeOf(parts[0]);
+            if (type == NONE) {
+                throw new IOException("Unknown piece type: " + parts[0]);
+            }
+            int color = Integer.parseInt(parts[1]);
+            int col = Integer.parseInt(parts[2]);
+            int row = Integer.parseInt(parts[3]);
+            if (color != RED && color != BLUE) {
+                throw new IOException("Invalid piece color: " + line);
+            }
+            if (!onBoard(col, row)) {
+                throw new IOException("Square off the board: " + line);
+            }
+            if (!isEmpty(square(col, row))) {
+                throw new IOException("Square already occupied: " + line);
+            }
+            put(color, type, square(col, row));
+        }
+    }
+
+    // Write the save.txt format. Ram directions are not part of it; read restores the defaults.
+    public void write(Writer writer) throws IOException {
+        writer.write(turnCounter + "," + sideToMove + System.lineSeparator());
+        for (int sq = 0; sq < SQUARES; sq++) {
+            int color = colorAt(sq);
+            if (color != NONE) {
+                writer.write(typeName(typeAt(sq)) + "," + color + "," + col(sq) + "," + row(sq) + System.lineSeparator());
+            }
+        }
+    }
+}
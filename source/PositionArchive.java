@@ -0,0 +1,165 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Append-only file of fixed-size PositionCodec records behind an 8-byte header
+// ("CGPA", format version, record size). Readers memory-map the file and decode records
+// in place, so any record can be reached by index without parsing the ones before it.
+// Usage: java PositionArchive <archive> import <save.txt>... | count | print <index>
+public class PositionArchive implements Closeable {
+    private static final int MAGIC = 0x43475041; // "CGPA"
+    private static final int HEADER_SIZE = 8;
+    private static final int BATCH = 4096;        // Records buffered per write
+
+    private final FileChannel channel;
+    private final ByteBuffer pending = ByteBuffer.allocate(BATCH * PositionCodec.RECORD_SIZE);
+
+    // Open for appending, creating the file with its header if needed. A record torn by a crash
+    // is cut off, so new records stay aligned after the last complete one.
+    public PositionArchive(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            channel.write(header());
+        } else {
+            validateHeader(channel, path);
+            long records = (channel.size() - HEADER_SIZE) / PositionCodec.RECORD_SIZE;
+            channel.truncate(HEADER_SIZE + records * PositionCodec.RECORD_SIZE);
+        }
+        channel.position(channel.size());
+    }
+
+    public synchronized void append(Position position) throws IOException {
+        if (pending.remaining() < PositionCodec.RECORD_SIZE) {
+            flush();
+        }
+        PositionCodec.encode(position, pending);
+    }
+
+    public synchronized void flush() throws IOException {
+        pending.flip();
+        while (pending.hasRemaining()) {
+            channel.write(pending);
+        }
+        pending.clear();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    private static ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putShort((short) PositionCodec.VERSION).putShort((short) PositionCodec.RECORD_SIZE);
+        header.flip();
+        return header;
+    }
+
+    // Throw unless `channel` starts with a header this version can read
+    private static void validateHeader(FileChannel channel, Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // Read the whole header
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+            throw new IOException("Not a position archive: " + path);
+        }
+        int version = header.getShort();
+        int recordSize = header.getShort();
+        if (version != PositionCodec.VERSION || recordSize != PositionCodec.RECORD_SIZE) {
+            throw new IOException("Unsupported archive version " + version + " in " + path);
+        }
+    }
+
+    // Memory-mapped view of an archive. Files over 2 GB are mapped in several chunks.
+    public static class Reader implements Closeable {
+        private static final int RECORDS_PER_CHUNK = Integer.MAX_VALUE / PositionCodec.RECORD_SIZE;
+
+        private final MappedByteBuffer[] chunks;
+        private final long count;
+
+        public Reader(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                validateHeader(channel, path);
+                count = (size - HEADER_SIZE) / PositionCodec.RECORD_SIZE; // Ignores a torn final record
+                int chunkCount = (int) ((count + RECORDS_PER_CHUNK - 1) / RECORDS_PER_CHUNK);
+                chunks = new MappedByteBuffer[chunkCount];
+                for (int i = 0; i < chunkCount; i++) {
+                    long first = (long) i * RECORDS_PER_CHUNK;
+                    long records = Math.min(RECORDS_PER_CHUNK, count - first);
+                    chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                            HEADER_SIZE + first * PositionCodec.RECORD_SIZE, records * PositionCodec.RECORD_SIZE);
+                }
+            }
+        }
+
+        public long count() {
+            return count;
+        }
+
+        // Decode record `index` into `into`
+        public void read(long index, Position into) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Record " + index + " of " + count);
+            }
+            int chunk = (int) (index / RECORDS_PER_CHUNK);
+            int offset = (int) (index % RECORDS_PER_CHUNK) * PositionCodec.RECORD_SIZE;
+            PositionCodec.decode(chunks[chunk], offset, into);
+        }
+
+        @Override
+        public void close() {
+            // Mappings are released when the buffers are garbage collected
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java PositionArchive <archive> import <save.txt>... | count | print <index>");
+            return;
+        }
+        Path path = Paths.get(args[0]);
+        switch (args[1]) {
+            case "import":
+                try (PositionArchive archive = new PositionArchive(path)) {
+                    Position position = new Position();
+                    for (int i = 2; i < args.length; i++) {
+                        try (BufferedReader reader = new BufferedReader(new FileReader(args[i]))) {
+                            position.read(reader);
+                        }
+                        archive.append(position);
+                    }
+                }
+                System.out.println("Imported " + (args.length - 2) + " positions into " + path);
+                break;
+            case "count":
+                try (Reader reader = new Reader(path)) {
+                    System.out.println(reader.count() + " positions, " + Files.size(path) + " bytes");
+                }
+                break;
+            case "print":
+                try (Reader reader = new Reader(path)) {
+                    Position position = new Position();
+                    reader.read(Long.parseLong(args[2]), position);
+                    PrintWriter console = new PrintWriter(System.out);
+                    position.write(console);
+                    console.flush();
+                }
+                break;
+            default:
+                System.out.println("Unknown command: " + args[1]);
+        }
+    }
+}
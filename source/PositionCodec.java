@@ -0,0 +1,103 @@
+import java.nio.ByteBuffer;
+
+// Versioned binary encoding of a Position in RECORD_SIZE bytes:
+//   byte 0      format version
+//   byte 1      bit 0 side to move, bits 1-2 Tor/Xor swap counter
+//   bytes 2-21  40 squares, 4 bits each (low nibble first)
+// Square codes: 0 empty, 1 + color * 5 + type for a piece, 11 + color for a Ram moving
+// against its color's default direction (Red Rams start moving down, Blue Rams up).
+// Codes 13-15 are unused and rejected.
+public final class PositionCodec {
+    public static final int VERSION = 1;
+    public static final int RECORD_SIZE = 2 + Position.SQUARES / 2;
+
+    private static final int REVERSED_RAM = 11;
+
+    private PositionCodec() {
+    }
+
+    public static byte[] encode(Position position) {
+        byte[] bytes = new byte[RECORD_SIZE];
+        encode(position, ByteBuffer.wrap(bytes));
+        return bytes;
+    }
+
+    // Write one record at the buffer's position and advance it
+    public static void encode(Position position, ByteBuffer out) {
+        out.put((byte) VERSION);
+        out.put((byte) (position.getSideToMove() | ((position.getTurnCounter() & 3) << 1)));
+        for (int sq = 0; sq < Position.SQUARES; sq += 2) {
+            out.put((byte) (squareCode(position, sq) | (squareCode(position, sq + 1) << 4)));
+        }
+    }
+
+    public static void decode(byte[] bytes, Position into) {
+        decode(ByteBuffer.wrap(bytes), 0, into);
+    }
+
+    // Read the record starting at an absolute offset, leaving the buffer's position untouched
+    public static void decode(ByteBuffer in, int offset, Position into) {
+        int version = in.get(offset);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported position format version " + version);
+        }
+        int flags = in.get(offset + 1);
+        into.clear();
+        for (int sq = 0; sq < Position.SQUARES; sq++) {
+            int packed = in.get(offset + 2 + sq / 2);
+            int code = (sq & 1) == 0 ? packed & 0xF : (packed >>> 4) & 0xF;
+            if (code == 0) {
+                continue;
+            }
+            if (code > REVERSED_RAM + Position.BLUE) {
+                throw new IllegalArgumentException("Invalid square code " + code + " on square " + sq);
+            }
+            if (code >= REVERSED_RAM) {
+                int color = code - REVERSED_RAM;
+                into.put(color, Position.RAM, sq);
+                into.setRamForward(sq, color != Position.RED);
+            } else {
+                into.put((code - 1) / Position.TYPES, (code - 1) % Position.TYPES, sq);
+            }
+        }
+        into.setSideToMove(flags & 1);
+        into.setTurnCounter((flags >>> 1) & 3);
+    }
+
+    // The record as 2 * RECORD_SIZE hex digits, for text protocols
+    public static String toHex(Position position) {
+        StringBuilder hex = new StringBuilder(2 * RECORD_SIZE);
+        for (byte b : encode(position)) {
+            hex.append(Character.forDigit((b >>> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    public static void fromHex(String hex, Position into) {
+        if (hex.length() != 2 * RECORD_SIZE) {
+            throw new IllegalArgumentException("Expected " + 2 * RECORD_SIZE + " hex digits: " + hex);
+        }
+        byte[] bytes = new byte[RECORD_SIZE];
+        for (int i = 0; i < RECORD_SIZE; i++) {
+            int high = Character.digit(hex.charAt(2 * i), 16);
+            int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("Not a hex digit in " + hex);
+            }
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        decode(bytes, into);
+    }
+
+    private static int squareCode(Position position, int sq) {
+        int color = position.colorAt(sq);
+        if (color == Position.NONE) {
+            return 0;
+        }
+        int type = position.typeAt(sq);
+        if (type == Position.RAM && position.isRamForward(sq) != (color == Position.RED)) {
+            return REVERSED_RAM + color;
+        }
+        return 1 + color * Position.TYPES + type;
+    }
+}
@@ -0,0 +1,58 @@
+// Immutable copy of a Position. GameModel publishes a new one after every change, so the render,
+// save and analysis threads can read a complete board from any thread without locking.
+// Copying costs a dozen longs; the undo history is not part of it.
+public final class PositionSnapshot {
+    private final Position position;    // Private copy, never modified after construction
+
+    public PositionSnapshot(Position source) {
+        position = new Position(1);
+        position.copyFrom(source);
+    }
+
+    // The piece on (col, row), or null if the square is empty
+    public Piece pieceAt(int col, int row) {
+        return Piece.at(position, Position.square(col, row));
+    }
+
+    public int colorAt(int square) {
+        return position.colorAt(square);
+    }
+
+    public int typeAt(int square) {
+        return position.typeAt(square);
+    }
+
+    public long occupied() {
+        return position.occupied();
+    }
+
+    public boolean isRamForward(int square) {
+        return position.isRamForward(square);
+    }
+
+    public boolean hasSau(int color) {
+        return position.hasSau(color);
+    }
+
+    public int getSideToMove() {
+        return position.getSideToMove();
+    }
+
+    public int getTurnCounter() {
+        return position.getTurnCounter();
+    }
+
+    public long getHash() {
+        return position.getHash();
+    }
+
+    // Evaluation from Red's point of view, in centi-Rams
+    public int evaluate() {
+        return Evaluation.forRed(position);
+    }
+
+    // Overwrite `into` with this position, without undo history
+    public void copyTo(Position into) {
+        into.copyFrom(position);
+    }
+}
@@ -0,0 +1,120 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import javax.swing.SwingUtilities;
+
+// Client side of the GameServer protocol for the Swing game. Server messages are read on a
+// background thread and passed to the listener on the EDT.
+public class RemoteGame {
+    public interface Listener {
+        void onMatch(int matchId, int color);
+
+        void onStart(Position start);
+
+        void onMove(int move, int color);
+
+        // `result` is the rest of the OVER line, e.g. "red" or "blue forfeit"
+        void onOver(String result);
+
+        void onError(String message);
+    }
+
+    private final Socket socket;
+    private final OutputStream out;
+    private final Listener listener;
+
+    public RemoteGame(String host, int port, Listener listener) throws IOException {
+        this.listener = listener;
+        socket = new Socket();
+        socket.connect(new InetSocketAddress(host, port), 5000);
+        socket.setTcpNoDelay(true);
+        out = socket.getOutputStream();
+        Thread reader = new Thread(this::readLoop, "remote-game");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    public void newMatch(int color) {
+        send("NEW " + GameServer.colorName(color));
+    }
+
+    public void join(int matchId) {
+        send("JOIN " + matchId);
+    }
+
+    public void sendMove(int move) {
+        send("MOVE " + Move.toString(move));
+    }
+
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    private synchronized void send(String line) {
+        try {
+            out.write((line + "\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        } catch (IOException e) {
+            SwingUtilities.invokeLater(() -> listener.onError("Connection lost: " + e.getMessage()));
+        }
+    }
+
+    private void readLoop() {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                GameLog.log(GameLog.DEBUG, "remote.received", line);
+                dispatch(line.split(" "));
+            }
+            SwingUtilities.invokeLater(() -> listener.onError("Server closed the connection"));
+        } catch (IOException e) {
+            if (!socket.isClosed()) {
+                SwingUtilities.invokeLater(() -> listener.onError("Connection lost: " + e.getMessage()));
+            }
+        }
+    }
+
+    private void dispatch(String[] parts) {
+        switch (parts[0]) {
+            case "MATCH": {
+                int matchId = Integer.parseInt(parts[1]);
+                int color = GameServer.parseColor(parts[2]);
+                SwingUtilities.invokeLater(() -> listener.onMatch(matchId, color));
+                break;
+            }
+            case "START": {
+                Position start = new Position();
+                PositionCodec.fromHex(parts[2], start);
+                SwingUtilities.invokeLater(() -> listener.onStart(start));
+                break;
+            }
+            case "MOVED": {
+                int move = Move.parse(parts[1]);
+                int color = GameServer.parseColor(parts[2]);
+                SwingUtilities.invokeLater(() -> listener.onMove(move, color));
+                break;
+            }
+            case "OVER": {
+                String result = String.join(" ", Arrays.copyOfRange(parts, 1, parts.length));
+                SwingUtilities.invokeLater(() -> listener.onOver(result));
+                break;
+            }
+            case "ERROR": {
+                String message = String.join(" ", Arrays.copyOfRange(parts, 1, parts.length));
+                SwingUtilities.invokeLater(() -> listener.onError(message));
+                break;
+            }
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.Timer;
+
+// Repaints the view only when something changed. While an animation such as a drag is active,
+// repaints are batched onto a frame timer capped at the target frame rate; otherwise nothing runs.
+public class RepaintScheduler {
+    private final Runnable repaint;
+    private final Timer frameTimer;                             // Runs on the EDT, only during animations
+    private final AtomicBoolean dirty = new AtomicBoolean();    // A repaint is owed at the next frame
+    private int animations = 0;                                 // Active animations, EDT only
+
+    // Measurement windows for getFrameRate and getCpuLoad
+    private final AtomicLong frames = new AtomicLong();
+    private long frameWindowStart = System.nanoTime();
+    private long frameWindowCount = 0;
+    private long cpuWindowStart = System.nanoTime();
+    private long cpuWindowTime = processCpuTime();
+
+    public RepaintScheduler(int fps, Runnable repaint) {
+        this.repaint = repaint;
+        this.frameTimer = new Timer(1000 / fps, e -> {
+            if (dirty.getAndSet(false)) {
+                repaint.run();
+            }
+        });
+        frameTimer.setCoalesce(true);
+    }
+
+    // Ask for a repaint. Outside animations it is requested right away, Swing merges duplicates.
+    public void requestRepaint() {
+        if (frameTimer.isRunning()) {
+            dirty.set(true);
+        } else {
+            repaint.run();
+        }
+    }
+
+    // Call on the EDT when an animation begins; the frame timer runs until every animation stops
+    public void startAnimation() {
+        if (animations++ == 0) {
+            frameTimer.start();
+        }
+    }
+
+    public void stopAnimation() {
+        if (animations > 0 && --animations == 0) {
+            frameTimer.stop();
+            if (dirty.getAndSet(false)) {
+                repaint.run(); // Show the final state of the animation
+            }
+        }
+    }
+
+    public boolean isAnimating() {
+        return frameTimer.isRunning();
+    }
+
+    // Called by the view after each paint of the board
+    public void frameRendered() {
+        frames.incrementAndGet();
+    }
+
+    // Frames painted per second since the previous call
+    public synchronized double getFrameRate() {
+        long now = System.nanoTime();
+        long count = frames.get();
+        double seconds = (now - frameWindowStart) / 1e9;
+        double rate = seconds > 0 ? (count - frameWindowCount) / seconds : 0;
+        frameWindowStart = now;
+        frameWindowCount = count;
+        return rate;
+    }
+
+    // Share of all cores used by the whole process since the previous call, from 0 to 1, or -1 if unknown
+    public synchronized double getCpuLoad() {
+        long now = System.nanoTime();
+        long cpu = processCpuTime();
+        if (cpu < 0 || cpuWindowTime < 0) {
+            return -1;
+        }
+        double load = (double) (cpu - cpuWindowTime) / (now - cpuWindowStart)
+                / Runtime.getRuntime().availableProcessors();
+        cpuWindowStart = now;
+        cpuWindowTime = cpu;
+        return load;
+    }
+
+    private static long processCpuTime() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return -1;
+    }
+}
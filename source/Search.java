@@ -0,0 +1,365 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+// Iterative-deepening alpha-beta search with a transposition table, capture-only quiescence
+// and a hard time limit. One instance per thread; the transposition table may be shared.
+public class Search {
+    public static final int MATE = 30000;           // Score for capturing the enemy Sau, less the ply it takes
+    public static final int INFINITY = 32000;
+    public static final int MAX_PLY = 64;
+
+    // Called after every completed iteration
+    public interface Listener {
+        void onIteration(int depth, int score, int bestMove, long nodes, long elapsedMillis);
+    }
+
+    // Outcome of one search
+    public static final class Result {
+        private final int move;
+        private final int score;
+        private final int depth;
+        private final long nodes;
+        private final long elapsedMillis;
+
+        public Result(int move, int score, int depth, long nodes, long elapsedMillis) {
+            this.move = move;
+            this.score = score;
+            this.depth = depth;
+            this.nodes = nodes;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getMove() {
+            return move;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+
+    // Stop requests for one or more searches. Each search runs under a token taken when it was
+    // requested, and stop() ends every search whose token was taken before it, including one that
+    // is still queued on another thread, so a stop can never be lost by arriving too early.
+    public static final class Control {
+        private final AtomicLong issued = new AtomicLong();
+        private final AtomicLong stoppedUpTo = new AtomicLong();
+
+        // Token for a search about to be requested
+        public long newToken() {
+            return issued.incrementAndGet();
+        }
+
+        // Stop every search requested so far
+        public void stop() {
+            stop(issued.get());
+        }
+
+        // Stop the search holding `token` and every one requested before it
+        public void stop(long token) {
+            stoppedUpTo.accumulateAndGet(token, Math::max);
+        }
+
+        public boolean isStopped(long token) {
+            return token <= stoppedUpTo.get();
+        }
+    }
+
+    private final TranspositionTable table;
+    private final Control control;
+    private final Position position = new Position();
+    private final int[][] moves = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+    private final int[][] orderScores = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private Listener listener;
+    private Tablebase tablebase;                    // Exact results for small endgames when set
+
+    private long token;                             // This search's stop token
+    private boolean aborted;
+    private long deadline;
+    private long nodes;
+    private int rootBestMove;
+    private int rootBestScore;
+
+    public Search(TranspositionTable table) {
+        this(table, new Control());
+    }
+
+    // Searches sharing `control` are stopped together
+    public Search(TranspositionTable table, Control control) {
+        this.table = table;
+        this.control = control;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // Ask a running or requested search to return as soon as possible. Safe to call from any thread.
+    public void stop() {
+        control.stop();
+    }
+
+    // Take the token for a search before handing it to another thread, so a stop() in between still ends it
+    public long newToken() {
+        return control.newToken();
+    }
+
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    public Result search(Position root, long timeMillis, int maxDepth) {
+        return search(root, timeMillis, maxDepth, 1, newToken());
+    }
+
+    // Iterative deepening from `startDepth` under the stop token `token`; parallel helpers start
+    // deeper to spread out the work. A search already stopped returns the first legal move.
+    public Result search(Position root, long timeMillis, int maxDepth, int startDepth, long token) {
+        long start = System.currentTimeMillis();
+        deadline = start + timeMillis;
+        this.token = token;
+        aborted = control.isStopped(token);
+        nodes = 0;
+        position.copyFrom(root);
+        for (int[] k : killers) {
+            k[0] = Move.NONE;
+            k[1] = Move.NONE;
+        }
+
+        // Fall back to the first legal move if not even depth 1 completes
+        int count = MoveGenerator.generate(position, moves[0]);
+        int bestMove = count > 0 ? moves[0][0] : Move.NONE;
+        int bestScore = 0;
+        int completedDepth = 0;
+
+        for (int depth = startDepth; depth <= Math.min(maxDepth, MAX_PLY) && count > 0; depth++) {
+            rootBestMove = Move.NONE;
+            int score = alphaBeta(depth, 0, -INFINITY, INFINITY);
+            if (rootBestMove != Move.NONE) {
+                // Root moves are only recorded once fully searched, so a partial iteration is still usable
+                bestMove = rootBestMove;
+                bestScore = aborted ? rootBestScore : score;
+            }
+            if (aborted) {
+                break;
+            }
+            completedDepth = depth;
+            long elapsed = System.currentTimeMillis() - start;
+            if (listener != null) {
+                listener.onIteration(depth, bestScore, bestMove, nodes, elapsed);
+            }
+            if (Math.abs(bestScore) >= MATE - MAX_PLY || elapsed * 2 > timeMillis) {
+                break; // Forced result, or the next iteration would not finish in time
+            }
+        }
+        return new Result(bestMove, bestScore, completedDepth, nodes, System.currentTimeMillis() - start);
+    }
+
+    private int alphaBeta(int depth, int ply, int alpha, int beta) {
+        if (!position.hasSau(position.getSideToMove())) {
+            return -MATE + ply;
+        }
+        if (tablebase != null && ply > 0) {
+            int code = tablebase.probe(position);
+            if (code != Tablebase.NOT_FOUND) {
+                return Tablebase.score(code, ply);
+            }
+        }
+        if (depth <= 0 || ply >= MAX_PLY) {
+            return quiescence(ply, alpha, beta);
+        }
+        if ((++nodes & 1023) == 0 && timeUp()) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+
+        long key = position.getHash();
+        long data = table.probe(key);
+        int ttMove = Move.NONE;
+        if (data != TranspositionTable.MISS) {
+            ttMove = TranspositionTable.move(data);
+            if (ply > 0 && TranspositionTable.depth(data) >= depth) {
+                int score = fromTable(TranspositionTable.score(data), ply);
+                int bound = TranspositionTable.bound(data);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int[] list = moves[ply];
+        int count = MoveGenerator.generate(position, list);
+        if (count == 0) {
+            return 0; // No legal move: neither side can make progress
+        }
+        scoreMoves(ply, count, ttMove);
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = Move.NONE;
+        for (int i = 0; i < count; i++) {
+            int move = pickMove(ply, i, count);
+            position.makeMove(move);
+            int score = -alphaBeta(depth - 1, ply + 1, -beta, -alpha);
+            position.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (ply == 0) {
+                    rootBestMove = move;
+                    rootBestScore = score;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    if (score >= beta) {
+                        if (!Move.isCapture(move) && killers[ply][0] != move) {
+                            killers[ply][1] = killers[ply][0];
+                            killers[ply][0] = move;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = bestScore >= beta ? TranspositionTable.LOWER
+                : bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bestMove, toTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    private int quiescence(int ply, int alpha, int beta) {
+        if (!position.hasSau(position.getSideToMove())) {
+            return -MATE + ply;
+        }
+        if ((++nodes & 1023) == 0 && timeUp()) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+        int standPat = Evaluation.evaluate(position);
+        if (standPat >= beta || ply >= MAX_PLY) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+
+        int[] list = moves[ply];
+        int count = MoveGenerator.generate(position, list);
+        int captures = 0;
+        for (int i = 0; i < count; i++) {
+            if (Move.isCapture(list[i])) {
+                list[captures++] = list[i];
+            }
+        }
+        scoreMoves(ply, captures, Move.NONE);
+        for (int i = 0; i < captures; i++) {
+            int move = pickMove(ply, i, captures);
+            position.makeMove(move);
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            position.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+            if (score > alpha) {
+                alpha = score;
+                if (score >= beta) {
+                    break;
+                }
+            }
+        }
+        return alpha;
+    }
+
+    // Hash move first, then captures by most valuable victim (the Sau above all), then killers
+    private void scoreMoves(int ply, int count, int ttMove) {
+        int[] list = moves[ply];
+        int[] scores = orderScores[ply];
+        for (int i = 0; i < count; i++) {
+            int move = list[i];
+            if (move == ttMove) {
+                scores[i] = 1 << 20;
+            } else if (Move.isCapture(move)) {
+                int victim = position.typeAt(Move.to(move));
+                int attacker = position.typeAt(Move.from(move));
+                int value = victim == Position.SAU ? 10000 : Evaluation.VALUES[victim];
+                scores[i] = (1 << 16) + value * 16 - Evaluation.VALUES[attacker] / 16;
+            } else if (move == killers[ply][0]) {
+                scores[i] = (1 << 15) + 1;
+            } else if (move == killers[ply][1]) {
+                scores[i] = 1 << 15;
+            } else {
+                scores[i] = 0;
+            }
+        }
+    }
+
+    // Selection sort step: bring the best remaining move to index i
+    private int pickMove(int ply, int i, int count) {
+        int[] list = moves[ply];
+        int[] scores = orderScores[ply];
+        int best = i;
+        for (int j = i + 1; j < count; j++) {
+            if (scores[j] > scores[best]) {
+                best = j;
+            }
+        }
+        int move = list[best];
+        list[best] = list[i];
+        list[i] = move;
+        int score = scores[best];
+        scores[best] = scores[i];
+        scores[i] = score;
+        return move;
+    }
+
+    private boolean timeUp() {
+        return control.isStopped(token) || System.currentTimeMillis() >= deadline;
+    }
+
+    // Mate scores are stored relative to the node so they stay correct at other plies
+    private static int toTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+}
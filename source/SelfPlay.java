@@ -0,0 +1,220 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Headless tournament runner: plays many independent games at once, one virtual thread per game,
+// on the bitboard rules only (no Swing, no images).
+// Usage: java SelfPlay [--games N] [--red random|engine] [--blue random|engine] [--depth D]
+//                      [--random-plies K] [--max-plies M] [--seed S] [--out results.txt]
+//                      [--archive positions.bin] [--journal games.journal]
+public class SelfPlay {
+    public static final int RED_WIN = 0;
+    public static final int BLUE_WIN = 1;
+    public static final int DRAW = 2;
+
+    private int games = 1000;
+    private boolean redEngine = false;
+    private boolean blueEngine = false;
+    private int depth = 4;                  // Engine search depth per move
+    private int randomPlies = 4;            // Random opening moves before the players take over
+    private int maxPlies = 300;             // Longer games are scored as draws
+    private long seed = 1;
+    private String out = "selfplay-results.txt";
+    private String archivePath = null;      // PositionArchive that receives every final position
+    private PositionArchive archive;
+    private String journalPath = null;      // MoveJournal that receives every game, e.g. to build an OpeningBook
+    private MoveJournal journal;
+
+    // Aggregate results, updated by every game thread
+    private final AtomicLong redWins = new AtomicLong();
+    private final AtomicLong blueWins = new AtomicLong();
+    private final AtomicLong draws = new AtomicLong();
+    private final AtomicLong totalPlies = new AtomicLong();
+
+    // Engine games each hold a transposition table, so only this many run at the same time
+    private final Semaphore engineSlots = new Semaphore(Runtime.getRuntime().availableProcessors());
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        SelfPlay selfPlay = new SelfPlay();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--games":
+                    selfPlay.games = Integer.parseInt(value);
+                    break;
+                case "--red":
+                    selfPlay.redEngine = value.equals("engine");
+                    break;
+                case "--blue":
+                    selfPlay.blueEngine = value.equals("engine");
+                    break;
+                case "--depth":
+                    selfPlay.depth = Integer.parseInt(value);
+                    break;
+                case "--random-plies":
+                    selfPlay.randomPlies = Integer.parseInt(value);
+                    break;
+                case "--max-plies":
+                    selfPlay.maxPlies = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    selfPlay.seed = Long.parseLong(value);
+                    break;
+                case "--out":
+                    selfPlay.out = value;
+                    break;
+                case "--archive":
+                    selfPlay.archivePath = value;
+                    break;
+                case "--journal":
+                    selfPlay.journalPath = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        selfPlay.run();
+    }
+
+    public void run() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        if (archivePath != null) {
+            archive = new PositionArchive(Paths.get(archivePath));
+        }
+        if (journalPath != null) {
+            journal = new MoveJournal(Paths.get(journalPath), 0);
+        }
+        ExecutorService executor = newGameExecutor();
+        for (int i = 0; i < games; i++) {
+            long gameSeed = seed * 1000003L + i;
+            executor.execute(() -> record(playGame(gameSeed)));
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        if (archive != null) {
+            archive.close();
+        }
+        if (journal != null) {
+            journal.close();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long played = redWins.get() + blueWins.get() + draws.get();
+        try (PrintWriter writer = new PrintWriter(new FileWriter(out))) {
+            writeResults(writer, played, seconds);
+        }
+        PrintWriter console = new PrintWriter(System.out, true);
+        writeResults(console, played, seconds);
+    }
+
+    private void writeResults(PrintWriter writer, long played, double seconds) {
+        writer.println("red=" + (redEngine ? "engine" : "random") + " blue=" + (blueEngine ? "engine" : "random")
+                + " depth=" + depth + " randomPlies=" + randomPlies + " maxPlies=" + maxPlies + " seed=" + seed);
+        writer.println("games=" + played);
+        writer.println("redWinRate=" + rate(redWins.get(), played));
+        writer.println("blueWinRate=" + rate(blueWins.get(), played));
+        writer.println("drawRate=" + rate(draws.get(), played));
+        writer.println("averagePlies=" + String.format("%.1f", played == 0 ? 0.0 : (double) totalPlies.get() / played));
+        writer.println("gamesPerSecond=" + String.format("%.1f", played / seconds));
+        writer.flush();
+    }
+
+    private static String rate(long count, long total) {
+        return String.format("%.4f", total == 0 ? 0.0 : (double) count / total);
+    }
+
+    private void record(long result) {
+        int outcome = (int) (result >>> 32);
+        totalPlies.addAndGet((int) result);
+        if (outcome == RED_WIN) {
+            redWins.incrementAndGet();
+        } else if (outcome == BLUE_WIN) {
+            blueWins.incrementAndGet();
+        } else {
+            draws.incrementAndGet();
+        }
+    }
+
+    // Play one game. Returns the outcome in the high 32 bits and the length in plies in the low 32 bits.
+    public long playGame(long gameSeed) {
+        boolean engine = redEngine || blueEngine;
+        if (engine) {
+            engineSlots.acquireUninterruptibly();
+        }
+        try {
+            Random random = new Random(gameSeed);
+            Search search = engine ? new Search(new TranspositionTable(4)) : null;
+            Position position = new Position();
+            position.setInitial();
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            int[] played = journal != null ? new int[maxPlies] : null;
+
+            int ply = 0;
+            while (ply < maxPlies) {
+                int count = MoveGenerator.generate(position, moves);
+                if (count == 0) {
+                    break;
+                }
+                int side = position.getSideToMove();
+                boolean useEngine = ply >= randomPlies && (side == Position.RED ? redEngine : blueEngine);
+                int move;
+                if (useEngine) {
+                    search.getTable().newSearch();
+                    move = search.search(position, Long.MAX_VALUE / 4, depth).getMove();
+                } else {
+                    move = moves[random.nextInt(count)];
+                }
+                position.makeMove(move);
+                if (played != null) {
+                    played[ply] = move;
+                }
+                ply++;
+            }
+
+            try {
+                if (archive != null) {
+                    archive.append(position);
+                }
+                if (journal != null) {
+                    Position start = new Position();
+                    start.setInitial();
+                    journal.appendGame(start, played, ply);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            int outcome;
+            if (!position.hasSau(Position.RED)) {
+                outcome = BLUE_WIN;
+            } else if (!position.hasSau(Position.BLUE)) {
+                outcome = RED_WIN;
+            } else {
+                outcome = DRAW;
+            }
+            return ((long) outcome << 32) | ply;
+        } finally {
+            if (engine) {
+                engineSlots.release();
+            }
+        }
+    }
+
+    // One virtual thread per game on Java 21+. The build targets Java 17, so the factory is looked
+    // up at runtime, with a pool of platform threads on older runtimes.
+    private static ExecutorService newGameExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+    }
+}
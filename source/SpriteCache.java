@@ -0,0 +1,96 @@
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.imageio.ImageIO;
+
+// Decodes each image in /Pic once and keeps screen-compatible copies pre-scaled per size,
+// so swaps, loads and frames never decode or scale again. Scaled copies for sizes that
+// are no longer drawn are evicted least-recently-used first.
+public final class SpriteCache {
+    private static final SpriteCache INSTANCE = new SpriteCache(2 * 14); // Two sizes of all 14 sprites
+
+    private final Map<String, BufferedImage> originals = new HashMap<>();
+    private final LinkedHashMap<String, BufferedImage> scaled;
+
+    public SpriteCache(int maxScaled) {
+        scaled = new LinkedHashMap<String, BufferedImage>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, BufferedImage> eldest) {
+                return size() > maxScaled;
+            }
+        };
+    }
+
+    public static SpriteCache getInstance() {
+        return INSTANCE;
+    }
+
+    // Sprite name for a piece, e.g. "RTor" or "FlipBRam". Only Ram and Sau have flipped artwork.
+    public static String name(int color, int type, boolean flipped) {
+        String name = (color == Position.RED ? "R" : "B") + Position.typeName(type);
+        if (flipped && (type == Position.RAM || type == Position.SAU)) {
+            return "Flip" + name;
+        }
+        return name;
+    }
+
+    // The decoded image at its original size
+    public synchronized BufferedImage image(String name) {
+        BufferedImage image = originals.get(name);
+        if (image == null) {
+            image = decode(name);
+            originals.put(name, image);
+        }
+        return image;
+    }
+
+    // The image scaled to size x size pixels
+    public synchronized BufferedImage scaled(String name, int size) {
+        String key = name + "@" + size;
+        BufferedImage image = scaled.get(key);
+        if (image == null) {
+            image = scale(image(name), size);
+            scaled.put(key, image);
+        }
+        return image;
+    }
+
+    private BufferedImage decode(String name) {
+        URL resource = getClass().getResource("/Pic/" + name + ".png");
+        if (resource == null) {
+            throw new IllegalArgumentException("No sprite named " + name);
+        }
+        try {
+            return ImageIO.read(resource);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode sprite " + name, e);
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int size) {
+        BufferedImage target;
+        if (GraphicsEnvironment.isHeadless()) {
+            target = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        } else {
+            // Same pixel layout as the screen, so drawing it is a plain copy
+            GraphicsConfiguration config = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            target = config.createCompatibleImage(size, size, Transparency.TRANSLUCENT);
+        }
+        Graphics2D g2d = target.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g2d.drawImage(source, 0, 0, size, size, null);
+        g2d.dispose();
+        return target;
+    }
+}
@@ -0,0 +1,370 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Endgame tables written by TablebaseGenerator, one file per material signature, probed through
+// memory-mapped I/O. Every entry holds the distance to capturing a Sau in plies with perfect play:
+// odd for a win of the side to move, even for a loss, 0 for a draw.
+public class Tablebase {
+    public static final int NOT_FOUND = -1;
+    public static final int DRAW = 0;
+
+    static final int MAGIC = 0x43475442; // "CGTB"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    // Material keys of all loaded tables, in both swap phases. Open addressing, so probes never allocate.
+    private int[] keys = new int[64];
+    private Table[] tables = new Table[64];
+    private byte[] phases = new byte[64];
+    private int count = 0;
+    private int maxPieces = 0;
+
+    // Load every table file in `dir`
+    public static Tablebase open(Path dir) throws IOException {
+        Tablebase tablebase = new Tablebase();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.tb")) {
+            for (Path file : files) {
+                tablebase.add(Table.read(file));
+            }
+        }
+        return tablebase;
+    }
+
+    public void add(Table table) {
+        if ((count + 2) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        insert(materialKey(table.codes, false), table, 0);
+        if (table.phases == 2) {
+            insert(materialKey(table.codes, true), table, 1);
+        }
+        maxPieces = Math.max(maxPieces, table.codes.length);
+    }
+
+    // Most pieces on the board, Saus included, of any loaded table
+    public int getMaxPieces() {
+        return maxPieces;
+    }
+
+    // Distance code for `position`, or NOT_FOUND if no table covers its material
+    public int probe(Position position) {
+        if (Long.bitCount(position.occupied()) > maxPieces
+                || !position.hasSau(Position.RED) || !position.hasSau(Position.BLUE)) {
+            return NOT_FOUND;
+        }
+        int slot = find(materialKey(position));
+        if (slot < 0) {
+            return NOT_FOUND;
+        }
+        Table table = tables[slot];
+        return table.get(table.index(position, phases[slot]));
+    }
+
+    // The move that keeps the best result for the side to move: fastest win, slowest loss,
+    // otherwise a move that keeps the draw. Move.NONE if the position is not covered.
+    public int bestMove(Position position, int[] buffer) {
+        int code = probe(position);
+        if (code == NOT_FOUND) {
+            return Move.NONE;
+        }
+        int count = MoveGenerator.generate(position, buffer);
+        int bestMove = Move.NONE;
+        int bestScore = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            int captured = position.makeMove(buffer[i]);
+            int score = captured == Position.SAU ? Search.MATE : -score(probe(position), 0);
+            position.unmakeMove();
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = buffer[i];
+            }
+        }
+        return bestMove;
+    }
+
+    // Search score of a distance code found `ply` plies from the root
+    public static int score(int code, int ply) {
+        if (code == NOT_FOUND || code == DRAW) {
+            return 0;
+        }
+        return (code & 1) != 0 ? Search.MATE - ply - code : -Search.MATE + ply + code;
+    }
+
+    // Piece counts packed three bits per piece code (color * TYPES + type)
+    static int materialKey(Position position) {
+        int key = 0;
+        for (int code = 0; code < 2 * Position.TYPES; code++) {
+            key |= Long.bitCount(position.pieces(code / Position.TYPES, code % Position.TYPES)) << (3 * code);
+        }
+        return key;
+    }
+
+    static int materialKey(int[] codes, boolean swapped) {
+        int key = 0;
+        for (int code : codes) {
+            key += 1 << (3 * (swapped ? swapCode(code) : code));
+        }
+        return key;
+    }
+
+    // The code a piece has after the Tors and Xors swap
+    static int swapCode(int code) {
+        int type = code % Position.TYPES;
+        if (type == Position.TOR || type == Position.XOR) {
+            return code - type + (Position.TOR + Position.XOR - type);
+        }
+        return code;
+    }
+
+    private int find(int key) {
+        int mask = keys.length - 1;
+        for (int slot = mix(key) & mask; tables[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(int key, Table table, int phase) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (tables[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (tables[slot] == null) {
+            count++;
+        }
+        keys[slot] = key;
+        tables[slot] = table;
+        phases[slot] = (byte) phase;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Table[] oldTables = tables;
+        byte[] oldPhases = phases;
+        keys = new int[capacity];
+        tables = new Table[capacity];
+        phases = new byte[capacity];
+        count = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldTables[i] != null) {
+                insert(oldKeys[i], oldTables[i], oldPhases[i]);
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        return (key * 0x9E3779B9) >>> 16;
+    }
+
+    // One material signature. Entries are indexed by piece squares, swap phase, turn counter,
+    // side to move and Ram directions; identical pieces are stored in ascending square order.
+    public static class Table {
+        final int[] codes;          // Piece codes in ascending order
+        final int phases;           // 2 if swapping Tors and Xors changes the material, otherwise 1
+        final int rams;             // Number of Rams
+        final long size;            // Number of entries
+
+        // Either the generator's working array or a packed, memory-mapped file
+        private final byte[] values;
+        private final ByteBuffer packed;
+        private final int bits;
+        private final int maxDistance;
+
+        Table(int[] codes, byte[] values) {
+            this(codes, values, null, 0, 0);
+        }
+
+        private Table(int[] codes, byte[] values, ByteBuffer packed, int bits, int maxDistance) {
+            this.codes = codes.clone();
+            Arrays.sort(this.codes);
+            this.phases = materialKey(this.codes, false) == materialKey(this.codes, true) ? 1 : 2;
+            int ramCount = 0;
+            for (int code : this.codes) {
+                if (code % Position.TYPES == Position.RAM) {
+                    ramCount++;
+                }
+            }
+            this.rams = ramCount;
+            long places = 1;
+            for (int i = 0; i < this.codes.length; i++) {
+                places *= Position.SQUARES;
+            }
+            this.size = places * phases * 2 * 2 << rams;
+            this.values = values;
+            this.packed = packed;
+            this.bits = bits;
+            this.maxDistance = maxDistance;
+        }
+
+        // File name for a signature, e.g. "RRam-RSau-BSau.tb"
+        public static String name(int[] codes) {
+            int[] sorted = codes.clone();
+            Arrays.sort(sorted);
+            StringBuilder name = new StringBuilder();
+            for (int code : sorted) {
+                if (name.length() > 0) {
+                    name.append('-');
+                }
+                name.append(code < Position.TYPES ? 'R' : 'B').append(Position.typeName(code % Position.TYPES));
+            }
+            return name.append(".tb").toString();
+        }
+
+        public int[] getCodes() {
+            return codes.clone();
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        // Longest distance in a table read from a file
+        public int getMaxDistance() {
+            return maxDistance;
+        }
+
+        // Entry index of `position`, whose material matches this table in swap phase `phase`
+        long index(Position position, int phase) {
+            long place = 0;
+            int ramBits = 0;
+            int previous = -1;
+            long remaining = 0;
+            for (int code : codes) {
+                if (code != previous) {
+                    int actual = phase == 1 ? swapCode(code) : code;
+                    remaining = position.pieces(actual / Position.TYPES, actual % Position.TYPES);
+                    previous = code;
+                }
+                int sq = Long.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+                place = place * Position.SQUARES + sq;
+                if (code % Position.TYPES == Position.RAM) {
+                    ramBits = (ramBits << 1) | (position.isRamForward(sq) ? 1 : 0);
+                }
+            }
+            long index = ((place * phases + phase) * 2 + (position.getTurnCounter() & 1)) * 2 + position.getSideToMove();
+            return (index << rams) | ramBits;
+        }
+
+        // Set up the position of entry `index`. Returns false if two pieces share a square.
+        boolean decode(long index, Position into) {
+            int ramBits = (int) (index & ((1 << rams) - 1));
+            index >>>= rams;
+            int side = (int) (index & 1);
+            index >>>= 1;
+            int counter = (int) (index & 1);
+            index >>>= 1;
+            int phase = (int) (index % phases);
+            long place = index / phases;
+
+            into.clear();
+            int ram = rams;
+            for (int i = codes.length - 1; i >= 0; i--) {
+                int sq = (int) (place % Position.SQUARES);
+                place /= Position.SQUARES;
+                if (!into.isEmpty(sq)) {
+                    return false;
+                }
+                int code = phase == 1 ? swapCode(codes[i]) : codes[i];
+                into.put(code / Position.TYPES, code % Position.TYPES, sq);
+                if (code % Position.TYPES == Position.RAM) {
+                    ram--;
+                    into.setRamForward(sq, ((ramBits >>> (rams - 1 - ram)) & 1) != 0);
+                }
+            }
+            into.setTurnCounter(counter);
+            into.setSideToMove(side);
+            return true;
+        }
+
+        int get(long index) {
+            if (values != null) {
+                return values[(int) index] & 0xFF;
+            }
+            long bit = index * bits;
+            int word = (int) (bit >>> 6);
+            int shift = (int) (bit & 63);
+            long value = packed.getLong(HEADER_SIZE + word * 8) >>> shift;
+            if (shift + bits > 64) {
+                value |= packed.getLong(HEADER_SIZE + (word + 1) * 8) << (64 - shift);
+            }
+            return (int) (value & ((1L << bits) - 1));
+        }
+
+        // Write the entries of `values` packed to the fewest bits that hold the longest distance
+        static void write(Path file, int[] codes, byte[] values) throws IOException {
+            int max = 0;
+            for (byte value : values) {
+                max = Math.max(max, value & 0xFF);
+            }
+            int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(max));
+            long[] words = new long[(int) (((long) values.length * bits + 63) / 64) + 1];
+            for (int i = 0; i < values.length; i++) {
+                long bit = (long) i * bits;
+                int word = (int) (bit >>> 6);
+                int shift = (int) (bit & 63);
+                long value = values[i] & 0xFF;
+                words[word] |= value << shift;
+                if (shift + bits > 64) {
+                    words[word + 1] |= value >>> (64 - shift);
+                }
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putShort((short) VERSION).putShort((short) bits).putLong(values.length);
+            header.putShort((short) max).put((byte) codes.length);
+            for (int code : codes) {
+                header.put((byte) code);
+            }
+            header.position(HEADER_SIZE).flip();
+            ByteBuffer body = ByteBuffer.allocate(words.length * 8);
+            body.asLongBuffer().put(words);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                while (body.hasRemaining()) {
+                    channel.write(body);
+                }
+            }
+        }
+
+        static Table read(Path file) throws IOException {
+            ByteBuffer data;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Table too large: " + file);
+                }
+                data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+                throw new IOException("Not an endgame table: " + file);
+            }
+            if (data.getShort(4) != VERSION) {
+                throw new IOException("Unsupported endgame table version " + data.getShort(4) + " in " + file);
+            }
+            int bits = data.getShort(6);
+            long entries = data.getLong(8);
+            int maxDistance = data.getShort(16);
+            int[] codes = new int[data.get(18)];
+            for (int i = 0; i < codes.length; i++) {
+                codes[i] = data.get(19 + i);
+            }
+            Table table = new Table(codes, null, data, bits, maxDistance);
+            if (table.size != entries || HEADER_SIZE + (entries * bits + 63) / 64 * 8 + 8 > data.capacity()) {
+                throw new IOException("Corrupt endgame table: " + file);
+            }
+            return table;
+        }
+    }
+}
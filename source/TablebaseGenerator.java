@@ -0,0 +1,206 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Solves every endgame with both Saus and up to `pieces` pieces in total and writes one Tablebase file
+// per material signature, smaller signatures first so captures can be looked up in finished tables.
+// Each table is solved by iterated passes: pass n finds the positions won or lost in exactly n plies
+// from the results of the earlier passes, split across threads over the index range.
+// Usage: java TablebaseGenerator <dir> [--pieces N] [--threads T]
+public class TablebaseGenerator {
+    private static final int CHUNK = 1 << 14;       // Entries per unit of work in a pass
+
+    private final Path dir;
+    private final int threads;
+    private final Tablebase finished = new Tablebase();    // Tables generated or loaded so far
+    private int longestFinished = 0;                        // Longest distance in any of them
+
+    public TablebaseGenerator(Path dir, int threads) {
+        this.dir = dir;
+        this.threads = threads;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: java TablebaseGenerator <dir> [--pieces N] [--threads T]");
+            return;
+        }
+        int pieces = 3;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--pieces")) {
+                pieces = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--threads")) {
+                threads = Integer.parseInt(args[i + 1]);
+            }
+        }
+        Path dir = Paths.get(args[0]);
+        Files.createDirectories(dir);
+        new TablebaseGenerator(dir, threads).generateAll(pieces);
+    }
+
+    // Generate, or load if already on disk, every signature with at most `pieces` pieces
+    public void generateAll(int pieces) throws IOException, InterruptedException {
+        if (pieces > 4) {
+            throw new IllegalArgumentException("Tables are limited to 4 pieces");
+        }
+        for (int[] codes : signatures(pieces)) {
+            Path file = dir.resolve(Tablebase.Table.name(codes));
+            if (Files.exists(file)) {
+                addFinished(Tablebase.Table.read(file));
+                System.out.println(file.getFileName() + ": already generated");
+                continue;
+            }
+            long start = System.currentTimeMillis();
+            byte[] values = solve(codes);
+            Tablebase.Table.write(file, codes, values);
+            addFinished(Tablebase.Table.read(file));
+            System.out.println(file.getFileName() + ": " + values.length + " entries, "
+                    + Files.size(file) + " bytes, " + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+
+    private void addFinished(Tablebase.Table table) {
+        finished.add(table);
+        longestFinished = Math.max(longestFinished, table.getMaxDistance());
+    }
+
+    // Signatures in order of piece count: both Saus plus every multiset of other pieces,
+    // one of each pair that differs only by swapping Tors and Xors
+    static List<int[]> signatures(int pieces) {
+        int[] others = new int[2 * (Position.TYPES - 1)];
+        int n = 0;
+        for (int code = 0; code < 2 * Position.TYPES; code++) {
+            if (code % Position.TYPES != Position.SAU) {
+                others[n++] = code;
+            }
+        }
+        Map<Integer, int[]> unique = new LinkedHashMap<>();
+        List<int[]> extras = new ArrayList<>();
+        extras.add(new int[0]);
+        for (int size = 0; size <= pieces - 2; size++) {
+            List<int[]> next = new ArrayList<>();
+            for (int[] extra : extras) {
+                if (extra.length != size) {
+                    continue;
+                }
+                int[] codes = Arrays.copyOf(extra, size + 2);
+                codes[size] = Position.SAU;
+                codes[size + 1] = Position.TYPES + Position.SAU;
+                Arrays.sort(codes);
+                int key = Tablebase.materialKey(codes, false);
+                if (!unique.containsKey(key) && !unique.containsKey(Tablebase.materialKey(codes, true))) {
+                    unique.put(key, codes);
+                }
+                // Extend in ascending code order so each multiset is built once
+                int last = size == 0 ? 0 : extra[size - 1];
+                for (int other : others) {
+                    if (other >= last) {
+                        int[] longer = Arrays.copyOf(extra, size + 1);
+                        longer[size] = other;
+                        next.add(longer);
+                    }
+                }
+            }
+            extras = next;
+        }
+        return new ArrayList<>(unique.values());
+    }
+
+    // Distance codes for every entry of signature `codes`
+    byte[] solve(int[] codes) throws InterruptedException {
+        Tablebase.Table shape = new Tablebase.Table(codes, null);
+        if (shape.size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Table too large: " + Tablebase.Table.name(codes));
+        }
+        byte[] values = new byte[(int) shape.size];
+        Tablebase.Table table = new Tablebase.Table(codes, values);
+        int key0 = Tablebase.materialKey(table.codes, false);
+
+        // A capture can lead into a finished table at any of its distances, so the passes only stop
+        // once those are all behind and neither a win pass nor a loss pass has found anything new
+        int idle = 0;
+        for (int pass = 1; idle < 2 || pass <= longestFinished + 1; pass++) {
+            if (pass > 255) {
+                throw new IllegalStateException("Distance does not fit a byte in " + Tablebase.Table.name(codes));
+            }
+            idle = runPass(table, values, key0, pass) == 0 ? idle + 1 : 0;
+        }
+        return values;
+    }
+
+    private long runPass(Tablebase.Table table, byte[] values, int key0, int pass) throws InterruptedException {
+        AtomicInteger nextChunk = new AtomicInteger();
+        AtomicLong changed = new AtomicLong();
+        int chunks = (values.length + CHUNK - 1) / CHUNK;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                Position position = new Position();
+                int[] moves = new int[MoveGenerator.MAX_MOVES];
+                long local = 0;
+                for (int chunk = nextChunk.getAndIncrement(); chunk < chunks; chunk = nextChunk.getAndIncrement()) {
+                    int end = Math.min(values.length, (chunk + 1) * CHUNK);
+                    for (int index = chunk * CHUNK; index < end; index++) {
+                        if (values[index] == 0 && table.decode(index, position)) {
+                            int code = resolve(table, values, key0, position, moves, pass);
+                            if (code != 0) {
+                                values[index] = (byte) code;
+                                local++;
+                            }
+                        }
+                    }
+                }
+                changed.addAndGet(local);
+            }, "tablebase-" + t);
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return changed.get();
+    }
+
+    // `pass` if the position is won (odd pass) or lost (even pass) in exactly that many plies, otherwise 0.
+    // Only distances below `pass` are trusted, so entries written during this pass are ignored.
+    private int resolve(Tablebase.Table table, byte[] values, int key0, Position position, int[] moves, int pass) {
+        int count = MoveGenerator.generate(position, moves);
+        if (count == 0) {
+            return 0; // No legal move: a draw, as in the search
+        }
+        boolean winPass = (pass & 1) != 0;
+        for (int i = 0; i < count; i++) {
+            int captured = position.makeMove(moves[i]);
+            if (captured == Position.SAU) {
+                position.unmakeMove();
+                return pass == 1 ? 1 : 0; // Won in 1, found by the first pass
+            }
+            int child;
+            if (captured != Position.NONE) {
+                child = Math.max(finished.probe(position), Tablebase.DRAW);
+            } else {
+                int phase = Tablebase.materialKey(position) == key0 ? 0 : 1;
+                child = values[(int) table.index(position, phase)] & 0xFF;
+            }
+            position.unmakeMove();
+
+            boolean known = child != 0 && child < pass;
+            if (winPass) {
+                if (known && (child & 1) == 0 && child + 1 == pass) {
+                    return pass;
+                }
+            } else if (!known || (child & 1) == 0) {
+                return 0; // A move that does not lose, or not yet known to
+            }
+        }
+        return winPass ? 0 : pass;
+    }
+}
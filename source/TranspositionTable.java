@@ -0,0 +1,106 @@
+// Fixed-size hash table of search results, shared between threads without locks.
+// Each entry is two longs: the key XORed with the data, then the data. A reader that sees a
+// torn write gets a key mismatch and treats it as a miss. Buckets hold two entries: the first
+// keeps the deepest result of the current search, the second always takes the newest one.
+public class TranspositionTable {
+    public static final int EXACT = 1;
+    public static final int LOWER = 2;  // Score is at least the stored value
+    public static final int UPPER = 3;  // Score is at most the stored value
+
+    public static final long MISS = 0; // Stored data is never 0 because the bound is never 0
+
+    private final long[] table;
+    private final int bucketMask;
+    private volatile int generation = 0;
+
+    public TranspositionTable(int megabytes) {
+        long buckets = Long.highestOneBit(Math.max(1L, ((long) megabytes << 20) / 32));
+        buckets = Math.min(buckets, 1L << 26);
+        table = new long[(int) buckets * 4];
+        bucketMask = (int) buckets - 1;
+    }
+
+    // Data layout: bits 0-12 move, 13-28 score + 32768, 29-36 depth, 37-38 bound, 39-46 generation
+    public static int move(long data) {
+        return (int) (data & 0x1FFF);
+    }
+
+    public static int score(long data) {
+        return (int) ((data >>> 13) & 0xFFFF) - 32768;
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> 29) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> 37) & 0x3);
+    }
+
+    private static int generation(long data) {
+        return (int) ((data >>> 39) & 0xFF);
+    }
+
+    // Start a new search so entries from older searches become the first to be replaced
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    public void clear() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = 0;
+        }
+    }
+
+    // Data stored for the key, or MISS
+    public long probe(long key) {
+        int base = bucket(key);
+        for (int i = base; i < base + 4; i += 2) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key && data != MISS) {
+                return data;
+            }
+        }
+        return MISS;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        int gen = generation;
+        long data = (move & 0x1FFFL)
+                | ((long) ((score + 32768) & 0xFFFF) << 13)
+                | ((long) Math.min(Math.max(depth, 0), 0xFF) << 29)
+                | ((long) bound << 37)
+                | ((long) gen << 39);
+
+        int base = bucket(key);
+        long oldData = table[base + 1];
+        boolean sameKey = (table[base] ^ oldData) == key;
+        int slot = base + 2; // Always-replace slot by default
+        if (sameKey || oldData == MISS || generation(oldData) != gen || depth >= depth(oldData)) {
+            slot = base;
+            if (sameKey && move == Move.NONE) {
+                data |= move(oldData); // Keep the best move from an earlier, shallower search
+            }
+        }
+        table[slot] = key ^ data;
+        table[slot + 1] = data;
+    }
+
+    // Permille of first-slot entries written during the current search, sampled from the first 1000 buckets
+    public int hashfull() {
+        int gen = generation;
+        int used = 0;
+        int samples = Math.min(1000, bucketMask + 1);
+        for (int i = 0; i < samples; i++) {
+            long data = table[i * 4 + 1];
+            if (data != MISS && generation(data) == gen) {
+                used++;
+            }
+        }
+        return used * 1000 / samples;
+    }
+
+    private int bucket(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) * 4;
+    }
+}
@@ -0,0 +1,34 @@
+import java.util.Random;
+
+// Random keys for incremental position hashing. Besides the pieces, the key covers everything
+// that changes which moves are legal: the side to move, the Tor/Xor swap phase and the Ram directions.
+public final class Zobrist {
+    public static final long[][] PIECE = new long[2 * Position.TYPES][Position.SQUARES]; // [color * TYPES + type][square]
+    public static final long[] RAM_FORWARD = new long[Position.SQUARES];
+    public static final long[] TURN_COUNTER = new long[4];
+    public static final long BLUE_TO_MOVE;
+
+    static {
+        Random random = new Random(0x2B0B1E5L); // Fixed seed so hashes are stable between runs
+        for (long[] keys : PIECE) {
+            for (int sq = 0; sq < keys.length; sq++) {
+                keys[sq] = random.nextLong();
+            }
+        }
+        for (int sq = 0; sq < RAM_FORWARD.length; sq++) {
+            RAM_FORWARD[sq] = random.nextLong();
+        }
+        TURN_COUNTER[0] = 0; // The usual phase hashes to nothing
+        for (int i = 1; i < TURN_COUNTER.length; i++) {
+            TURN_COUNTER[i] = random.nextLong();
+        }
+        BLUE_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    public static long turnCounter(int turnCounter) {
+        return TURN_COUNTER[turnCounter & 3];
+    }
+}
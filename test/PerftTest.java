@@ -0,0 +1,35 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+// Move generation regression oracle: leaf counts from the starting position. Depth 4 and up
+// include Tor/Xor swaps and Rams reversing at the last row, so a change to either rule shows here.
+class PerftTest {
+    private static final long[] START_COUNTS = {1, 9, 81, 855, 9022, 109234};
+
+    @Test
+    void startPositionCounts() {
+        Position start = new Position();
+        start.setInitial();
+        Perft perft = new Perft(START_COUNTS.length - 1);
+        for (int depth = 1; depth < START_COUNTS.length; depth++) {
+            assertEquals(START_COUNTS[depth], perft.perft(start, depth), "depth " + depth);
+        }
+    }
+
+    @Test
+    void divideAddsUpToPerft() {
+        Position start = new Position();
+        start.setInitial();
+        Perft perft = new Perft(4);
+        int[] rootMoves = new int[MoveGenerator.MAX_MOVES];
+        long[] counts = new long[MoveGenerator.MAX_MOVES];
+        int count = perft.divide(start, 4, rootMoves, counts);
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += counts[i];
+        }
+        assertEquals(START_COUNTS[1], count);
+        assertEquals(START_COUNTS[4], total);
+    }
+}
@@ -0,0 +1,80 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+// Random playouts checking what Position keeps incrementally: the Zobrist hash and piece-square
+// score must match a recomputation after every move, every position must survive a PositionCodec
+// round trip, and unmakeMove must restore the packed undo record's state exactly.
+class PositionTest {
+    private static final int GAMES = 300;
+    private static final int MAX_PLIES = 400;
+
+    @Test
+    void randomPlayoutsKeepIncrementalStateAndUndo() {
+        Random random = new Random(1);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        Position position = new Position();
+        Position decoded = new Position();
+        Position[] before = new Position[MAX_PLIES];
+        for (int i = 0; i < MAX_PLIES; i++) {
+            before[i] = new Position(1);
+        }
+
+        for (int game = 0; game < GAMES; game++) {
+            position.setInitial();
+            int plies = 0;
+            while (plies < MAX_PLIES) {
+                int count = MoveGenerator.generate(position, moves);
+                if (count == 0) {
+                    break;
+                }
+                int move = moves[random.nextInt(count)];
+                before[plies].copyFrom(position);
+                position.makeMove(move);
+                plies++;
+                String where = "game " + game + " ply " + plies + " after " + Move.toString(move);
+                assertEquals(position.computeHash(), position.getHash(), where);
+                assertEquals(position.computeScore(), position.getScore(), where);
+
+                byte[] record = PositionCodec.encode(position);
+                PositionCodec.decode(record, decoded);
+                assertSame(position, decoded, where + " decoded");
+                assertArrayEquals(record, PositionCodec.encode(decoded), where);
+
+                // Now and then take back a few moves and play on from there
+                if (random.nextInt(8) == 0) {
+                    int back = 1 + random.nextInt(Math.min(plies, 6));
+                    for (int i = 0; i < back; i++) {
+                        position.unmakeMove();
+                        plies--;
+                        assertSame(before[plies], position, "game " + game + " unmade to ply " + plies);
+                    }
+                }
+            }
+            while (plies > 0) {
+                position.unmakeMove();
+                plies--;
+                assertSame(before[plies], position, "game " + game + " unmade to ply " + plies);
+            }
+            assertEquals(0, position.getUndoSize());
+        }
+    }
+
+    // Same pieces, Ram directions, side to move, turn counter, hash and score
+    private static void assertSame(Position expected, Position actual, String where) {
+        for (int color = Position.RED; color <= Position.BLUE; color++) {
+            for (int type = 0; type < Position.TYPES; type++) {
+                assertEquals(expected.pieces(color, type), actual.pieces(color, type),
+                        where + ": " + Position.typeName(type) + " of color " + color);
+            }
+        }
+        assertEquals(expected.getRamForward(), actual.getRamForward(), where + ": Ram directions");
+        assertEquals(expected.getSideToMove(), actual.getSideToMove(), where + ": side to move");
+        assertEquals(expected.getTurnCounter(), actual.getTurnCounter(), where + ": turn counter");
+        assertEquals(expected.getHash(), actual.getHash(), where + ": hash");
+        assertEquals(expected.getScore(), actual.getScore(), where + ": score");
+        assertEquals(actual.computeHash(), actual.getHash(), where + ": recomputed hash");
+    }
+}